@@ -0,0 +1,15 @@
+#!/bin/bash
+
+# Runs HarnessBenchmarks and writes calibration.csv (or $1), for
+#   JAVA_OPTS="-Dperf.calibration=$PWD/calibration.csv" ./run_all_tests.sh
+# Any JMH benchmark can be run the same way:
+#   java -cp "$CP" org.openjdk.jmh.Main ClientBenchmarks -prof gc
+
+set -e
+cd "$(dirname "$0")"
+
+echo "Compiling harness and benchmarks..."
+(cd .. && mvn -q -pl harness-benchmarks -am test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt)
+
+CP="target/test-classes:$(cat target/test-classpath.txt)"
+java -cp "$CP" ecse429.Calibrate "${1:-calibration.csv}"
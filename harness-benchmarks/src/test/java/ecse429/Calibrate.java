@@ -0,0 +1,36 @@
+package ecse429;
+
+import java.io.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs HarnessBenchmarks and writes one row per benchmark to the
+ * calibration CSV (default calibration.csv) that -Dperf.calibration reads:
+ *
+ *   java ecse429.Calibrate [calibration.csv]
+ */
+public final class Calibrate {
+
+    private Calibrate() {}
+
+    public static void main(String[] args) throws Exception {
+        String filename = args.length > 0 ? args[0] : "calibration.csv";
+
+        var results = new Runner(new OptionsBuilder()
+                .include(HarnessBenchmarks.class.getName() + "\\.")
+                .build()).run();
+
+        try (PrintWriter pw = new PrintWriter(new FileWriter(filename))) {
+            pw.println("benchmark,ns_per_op,error_ns");
+            for (RunResult r : results) {
+                String name = r.getParams().getBenchmark();
+                pw.printf("%s,%.1f,%.1f%n",
+                        name.substring(name.lastIndexOf('.') + 1),
+                        r.getPrimaryResult().getScore(), r.getPrimaryResult().getScoreError());
+            }
+        }
+        System.out.println("Calibration written to " + filename);
+    }
+}
@@ -0,0 +1,87 @@
+package ecse429;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * What the client spends per request before and after the wire: building
+ * request bodies and reading the id back out of a response. The *Tree
+ * benchmarks are the JsonObject / parse-tree way, kept as the baseline for
+ * the templated bodies and the streaming extractId. For bytes per op:
+ *
+ *   java -cp target/test-classes:$(cat target/test-classpath.txt) org.openjdk.jmh.Main ClientBenchmarks -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@org.openjdk.jmh.annotations.Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientBenchmarks {
+
+    // as returned by POST /todos
+    private static final String RESPONSE =
+            "{\"id\":\"4711\",\"title\":\"todo-100-42\",\"doneStatus\":\"false\",\"description\":\"perf-test\"}";
+    private static final String RESPONSE_ID_LAST =
+            "{\"title\":\"todo-100-42\",\"doneStatus\":\"false\",\"description\":\"perf-test\",\"id\":\"4711\"}";
+    private static final String TITLE = "todo-100-42";
+    private static final int ID = 4711;
+
+    private final ByteBuffer out = ByteBuffer.allocate(1024);
+
+    // ---------- REQUEST BODIES ----------
+
+    @Benchmark
+    public byte[] createBodyTree() {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("title", TITLE);
+        obj.addProperty("doneStatus", false);
+        obj.addProperty("description", "perf-test");
+        return obj.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int createBodyTemplate() {
+        out.clear();
+        Api.todo(TITLE).writeTo(out);
+        return out.position();
+    }
+
+    @Benchmark
+    public byte[] updateBodyTree() {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("title", "updated-todo-" + ID);
+        obj.addProperty("doneStatus", true);
+        obj.addProperty("description", "updated-desc");
+        return obj.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int updateBodyTemplate() {
+        out.clear();
+        Api.updated("todos", ID).writeTo(out);
+        return out.position();
+    }
+
+    // ---------- RESPONSE ID ----------
+
+    @Benchmark
+    public int extractIdTree() {
+        return JsonParser.parseString(RESPONSE).getAsJsonObject().get("id").getAsInt();
+    }
+
+    @Benchmark
+    public int extractIdStreaming() {
+        return Api.extractId(RESPONSE);
+    }
+
+    /** The JsonReader path, taken when id is not the first field. */
+    @Benchmark
+    public int extractIdStreamingIdLast() {
+        return Api.extractId(RESPONSE_ID_LAST);
+    }
+}
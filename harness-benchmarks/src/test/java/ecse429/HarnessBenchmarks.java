@@ -0,0 +1,83 @@
+package ecse429;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The harness's own cost, with no real server behind it: the measure()
+ * wrapper, recording a row into a PerformanceMonitor, and a whole create
+ * call against a loopback NoOpEndpoint through each client transport.
+ * Calibrate turns the no-op round trips into the per-request offset that
+ * -Dperf.calibration records next to the results for the reports to subtract.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@org.openjdk.jmh.annotations.Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HarnessBenchmarks {
+
+    private static final String TITLE = "todo-100-42";
+
+    private NoOpEndpoint endpoint;
+    // one per -Dperf.transport, each named after its Calibration row
+    private Api api;            // default: java.net.http
+    private Api phasedApi;      // pooled (also -Dperf.phases): keep-alive PhasedClient
+    private Api freshApi;       // fresh: PhasedClient, a new connection per request
+    private Api h2cApi;         // h2c: java.net.http preferring HTTP/2
+    private PerformanceMonitor monitor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        endpoint = new NoOpEndpoint();
+        api = new Api(endpoint.base(), Transport.DEFAULT);
+        phasedApi = new Api(endpoint.base(), Transport.POOLED);
+        freshApi = new Api(endpoint.base(), Transport.FRESH);
+        h2cApi = new Api(endpoint.base(), Transport.H2C);
+        monitor = new PerformanceMonitor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        endpoint.stop();
+    }
+
+    /** Api.measure around nothing: the timing wrapper alone. */
+    @Benchmark
+    public long measureEmpty() throws Exception {
+        return Api.measure(() -> { });
+    }
+
+    /** recordAdd/Update/Delete of one row, histograms only. */
+    @Benchmark
+    public void recordRow() {
+        monitor.recordAdd(100, 250_000);
+        monitor.recordUpdate(200_000);
+        monitor.recordDelete(150_000);
+    }
+
+    /** POST with a todo body and id extraction, over java.net.http. */
+    @Benchmark
+    public int createNoop() throws Exception {
+        return api.create("todos", Api.todo(TITLE));
+    }
+
+    /** The same over a pooled PhasedClient, as with -Dperf.transport=pooled or -Dperf.phases=true. */
+    @Benchmark
+    public int createNoopPhased() throws Exception {
+        return phasedApi.create("todos", Api.todo(TITLE));
+    }
+
+    /** The same over PhasedClient with a new connection each time, as with -Dperf.transport=fresh. */
+    @Benchmark
+    public int createNoopFresh() throws Exception {
+        return freshApi.create("todos", Api.todo(TITLE));
+    }
+
+    /** The same over java.net.http asking for HTTP/2, as with -Dperf.transport=h2c. */
+    @Benchmark
+    public int createNoopH2c() throws Exception {
+        return h2cApi.create("todos", Api.todo(TITLE));
+    }
+}
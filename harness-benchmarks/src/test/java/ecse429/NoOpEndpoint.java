@@ -0,0 +1,48 @@
+package ecse429;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loopback HTTP endpoint that does nothing: every request is drained and
+ * answered 200 with {"id":"1"}, so a round trip to it is the client's and
+ * the loopback's cost alone.
+ */
+public class NoOpEndpoint {
+
+    static {
+        // same as StandInServer: without it Nagle and delayed ACKs dominate
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final byte[] BODY = "{\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+
+    public NoOpEndpoint() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.createContext("/", NoOpEndpoint::handle);
+        server.start();
+    }
+
+    private static void handle(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody(); OutputStream out = ex.getResponseBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+            ex.getResponseHeaders().set("Content-Type", "application/json");
+            ex.sendResponseHeaders(200, BODY.length);
+            out.write(BODY);
+        }
+    }
+
+    public String base() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+}
@@ -5,9 +5,31 @@ import sys
 
 # PART 1 — INTEROPERABILITY GRAPHS
 
-CSV_DIR_INTER = "csv_files/interoperability_csv"
+CSV_DIR_INTER = "csv_files"
+INTER_SUITES = [
+    "TodoTasksofTests",
+    "TodoCategoriesTests",
+    "ProjectTasksTests",
+    "ProjectCategoriesTests",
+    "CategoryProjectsTests",
+    "CategoryTodosTests",
+]
 GRAPH_INTER = "graphs/interoperability"
 os.makedirs(GRAPH_INTER, exist_ok=True)
+OFFSET_MS = calibration_offset_ms(CSV_DIR_INTER)
+
+# harness cost per request from -Dperf.calibration (written by SuiteRunner), 0 if uncalibrated
+def calibration_offset_ms(csv_dir):
+    path = os.path.join(csv_dir, "calibration_offset.csv")
+    if not os.path.exists(path):
+        return 0.0
+    return float(pd.read_csv(path)["offset_ms"].iloc[0])
+
+# each add/update/delete sample is one request, so each carries one offset
+def subtract_offset(df, offset_ms):
+    for col in ("add_ms", "update_ms", "delete_ms"):
+        if col in df.columns:
+            df[col] = df[col] - offset_ms
 
 def maybe_plot(df, col, label):
     if col in df.columns:
@@ -17,7 +39,14 @@ def maybe_plot(df, col, label):
 
 print("=== Processing interoperability CSV files ===")
 
-inter_files = [f for f in os.listdir(CSV_DIR_INTER) if f.endswith(".csv")]
+# each suite writes <relation>_metrics.csv (plus a _latency.csv) into its own directory
+inter_files = [
+    os.path.join(suite, f)
+    for suite in INTER_SUITES
+    if os.path.isdir(os.path.join(CSV_DIR_INTER, suite))
+    for f in os.listdir(os.path.join(CSV_DIR_INTER, suite))
+    if f.endswith("_metrics.csv")
+]
 
 if not inter_files:
     print("⚠ No interoperability CSV files found.")
@@ -26,7 +55,7 @@ else:
 
 for file in inter_files:
     csv_path = os.path.join(CSV_DIR_INTER, file)
-    base = os.path.splitext(file)[0]
+    base = os.path.splitext(os.path.basename(file))[0]
     endpoint = base.replace("_metrics", "")
 
     OUT = os.path.join(GRAPH_INTER, endpoint)
@@ -36,6 +65,7 @@ for file in inter_files:
 
     df = pd.read_csv(csv_path)
     df["t"] = df["timestamp"] - df["timestamp"].min()
+    subtract_offset(df, OFFSET_MS)
 
     # --- Transaction Time ---
     plt.figure(figsize=(12,6))
@@ -104,6 +134,7 @@ for endpoint, rel_path in BASIC_ENDPOINTS.items():
 
     df = pd.read_csv(csv_path)
     df["t"] = df["timestamp"] - df["timestamp"].min()
+    subtract_offset(df, calibration_offset_ms(CSV_DIR_BASIC))
 
     OUT = os.path.join(GRAPH_BASIC, endpoint)
     os.makedirs(OUT, exist_ok=True)
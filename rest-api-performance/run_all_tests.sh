@@ -1,92 +1,40 @@
 #!/bin/bash
 
-# PART 1 — Interoperability Tests (CSV only)
+# PART 1 — Performance suites (CSV only)
+#
+# All suites run back to back in one JVM through SuiteRunner; each writes its
+# CSV files to csv_files/<SuiteName>/. Pass suite names to run only those,
+# and -D options through JAVA_OPTS, e.g.
+#   JAVA_OPTS="-Dperf.embedded=true" ./run_all_tests.sh TodoTests ProjectTests
+# To launch the server jar first and give every suite a fresh one:
+#   JAVA_OPTS="-Dperf.server.jar=path/to/server.jar -Dperf.server.restart=true" ./run_all_tests.sh
 
+set -e
 
-echo "Running interoperability performance tests and saving CSV files..."
+echo "Compiling suites..."
+mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt
 
-# Interoperability Test class names
-INTER_TESTS=(
-    "TodoTasksofTests"
-    "TodoCategoriesTests"
-    "ProjectTasksTests"
-    "ProjectCategoriesTests"
-    "CategoryProjectsTests"
-    "CategoryTodosTests"
-)
+echo "Running performance suites and saving CSV files..."
+set +e
+java $JAVA_OPTS -cp "target/test-classes:$(cat target/test-classpath.txt)" ecse429.SuiteRunner "$@"
+STATUS=$?
+set -e
 
-# CSV output directory
-MAIN_DIR="csv_files"
-SUB_DIR="interoperability_csv"
-OUTPUT_DIR="$MAIN_DIR/$SUB_DIR"
+if [[ $STATUS -ne 0 ]]; then
+    echo "⚠ Some suites failed — see the output above."
+fi
 
-mkdir -p "$OUTPUT_DIR"
+echo "CSV files saved under: csv_files/"
 
-for TEST in "${INTER_TESTS[@]}"; do
+# Optional regression gate: BASELINE=<dir with an earlier csv_files copy>
+if [[ -n "$BASELINE" ]]; then
+    echo "Comparing against baseline $BASELINE..."
+    java $JAVA_OPTS -cp target/test-classes ecse429.RegressionGate "$BASELINE" csv_files || STATUS=1
+fi
 
-    echo "Running $TEST"
 
-    # Run test (console output is displayed normally)
-    mvn -q -Dtest="$TEST" test
 
-    # Move CSV file generated by this test
-    CSV_FILE=$(ls *_metrics.csv 2>/dev/null | head -n 1)
-    if [[ -n "$CSV_FILE" ]]; then
-        echo "Moving $CSV_FILE → $OUTPUT_DIR/"
-        mv "$CSV_FILE" "$OUTPUT_DIR/"
-    else
-        echo "⚠ No CSV file found for $TEST — did the test run correctly?"
-    fi
-
-    echo "✔ Finished $TEST"
-    echo
-done
-
-echo "Interoperability CSV files saved to: $OUTPUT_DIR/"
-
-
-
-# PART 2 — Basic Tests (category / project / todo)
-
-
-echo "Running basic performance tests (Category, Project, Todo)..."
-
-BASIC_TESTS=(
-    "CategoryTests"
-    "ProjectTests"
-    "TodoTests"
-)
-
-BASE_DIR="csv_files"
-mkdir -p "$BASE_DIR"
-
-for TEST in "${BASIC_TESTS[@]}"; do
-
-    echo "Running $TEST"
-
-    mvn -q -Dtest="$TEST" test
-
-    TEST_DIR="$BASE_DIR/$TEST"
-    mkdir -p "$TEST_DIR"
-
-    CSV_FILE=$(ls *_metrics.csv 2>/dev/null | head -n 1)
-
-    if [[ -n "$CSV_FILE" ]]; then
-        echo "Saving CSV: $CSV_FILE → $TEST_DIR/"
-        mv "$CSV_FILE" "$TEST_DIR/"
-    else
-        echo "⚠ No CSV file found for $TEST"
-    fi
-
-    echo "✔ Finished $TEST"
-    echo
-done
-
-echo "All basic CSV files saved under: $BASE_DIR/"
-
-
-
-# PART 3 — Run Python graph generator
+# PART 2 — Run Python graph generator
 
 
 echo "Activating venv and generating graphs..."
@@ -94,3 +42,5 @@ source venv/bin/activate
 python graph_all.py
 
 echo "All graphs completed."
+
+exit $STATUS
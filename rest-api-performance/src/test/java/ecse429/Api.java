@@ -0,0 +1,336 @@
+package ecse429;
+
+import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.http.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Shared client for the suites that work across todos, projects and
+ * categories: measuring, sending, id extraction and the CRUD/relationship
+ * calls, synchronous and asynchronous.
+ */
+public class Api {
+
+    private static final int IN_FLIGHT = Integer.getInteger("perf.inflight", 256);
+
+    // every request sent by any Api instance, for per-request server cost
+    private static final LongAdder REQUESTS = new LongAdder();
+
+    @FunctionalInterface
+    public interface CheckedRunnable { void run() throws Exception; }
+
+    /** The server answered outside 2xx; thrown (or failing the future) instead of returning the body. */
+    public static final class StatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public final int status;
+
+        StatusException(String method, String path, int status, String body) {
+            super(method + " " + path + ": " + status + (body == null || body.isEmpty() ? "" : " " + body));
+            this.status = status;
+        }
+    }
+
+    private final String base;
+    private final HttpClient client;
+    private final PhasedClient phased;
+    private final PayloadFormat format;
+
+    public Api() {
+        this(Target.base(), Transport.fromProperties(), PayloadFormat.fromProperties());
+    }
+
+    public Api(String base, Transport transport) {
+        this(base, transport, PayloadFormat.fromProperties());
+    }
+
+    public Api(String base, Transport transport, PayloadFormat format) {
+        this.base = base;
+        this.client = transport.httpClient();
+        this.phased = transport.phasedClient(base);
+        this.format = format;
+    }
+
+    public PayloadFormat format() {
+        return format;
+    }
+
+    /** Protocol the synchronous calls end up on, e.g. HTTP_2 once an h2c upgrade succeeded. */
+    public String protocol() throws Exception {
+        if (phased != null) return HttpClient.Version.HTTP_1_1.name();
+        REQUESTS.increment();
+        return checked(client.send(request("/todos").GET().build(), HttpResponse.BodyHandlers.discarding()))
+                .version().name();
+    }
+
+    /** Requests sent so far by all Api instances. */
+    public static long requests() {
+        return REQUESTS.sum();
+    }
+
+    /**
+     * Times {@code r} (raw; see Calibration for the harness offset); with
+     * the pooled or fresh transport its requests' phases are left in
+     * RequestPhases.last().
+     */
+    public static long measure(CheckedRunnable r) throws Exception {
+        RequestPhases.begin();
+        try {
+            long start = System.nanoTime();
+            r.run();
+            return System.nanoTime() - start; // ns
+        } finally {
+            RequestPhases.end();
+        }
+    }
+
+    /** Reads the top-level "id" (number or numeric string), stopping as soon as it is found. */
+    public static int extractId(String json) {
+        int id = leadingId(json);
+        if (id >= 0) return id;
+
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("id")) return reader.nextInt();
+                reader.skipValue();
+            }
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new JsonParseException("No id in " + json, e);
+        }
+        throw new JsonParseException("No id in " + json);
+    }
+
+    /** The id when it is the first field, as the server writes it, without allocating; else -1. */
+    private static int leadingId(String json) {
+        String key = "{\"id\":";
+        if (!json.startsWith(key)) return -1;
+
+        int i = key.length();
+        boolean quoted = i < json.length() && json.charAt(i) == '"';
+        if (quoted) i++;
+
+        long id = 0;
+        int digits = 0;
+        for (; i < json.length() && digits < 10; i++, digits++) {
+            char c = json.charAt(i);
+            if (c < '0' || c > '9') break;
+            id = id * 10 + (c - '0');
+        }
+        if (digits == 0 || id > Integer.MAX_VALUE || i >= json.length()) return -1;
+
+        char end = json.charAt(i);
+        return (quoted ? end == '"' : end == ',' || end == '}') ? (int) id : -1;
+    }
+
+    // ---------- BODIES ----------
+    // serialized once, as JSON and as XML; only the title or id is written per request
+    private static final RequestBody.Template TODO =
+            new RequestBody.Template("{\"title\":\"", "\",\"doneStatus\":false,\"description\":\"perf-test\"}")
+                    .withXml("<todo><title>", "</title><doneStatus>false</doneStatus><description>perf-test</description></todo>");
+    private static final RequestBody.Template PROJECT =
+            new RequestBody.Template("{\"title\":\"", "\",\"completed\":false,\"active\":true}")
+                    .withXml("<project><title>", "</title><completed>false</completed><active>true</active></project>");
+    private static final RequestBody.Template CATEGORY =
+            new RequestBody.Template("{\"title\":\"", "\",\"description\":\"perf-test\"}")
+                    .withXml("<category><title>", "</title><description>perf-test</description></category>");
+    private static final RequestBody.Template UPDATED_TODO =
+            new RequestBody.Template("{\"title\":\"updated-todo-", "\",\"doneStatus\":true,\"description\":\"updated-desc\"}")
+                    .withXml("<todo><title>updated-todo-", "</title><doneStatus>true</doneStatus><description>updated-desc</description></todo>");
+    private static final RequestBody.Template UPDATED_PROJECT =
+            new RequestBody.Template("{\"title\":\"updated-project-", "\",\"completed\":true,\"active\":false}")
+                    .withXml("<project><title>updated-project-", "</title><completed>true</completed><active>false</active></project>");
+    private static final RequestBody.Template UPDATED_CATEGORY =
+            new RequestBody.Template("{\"title\":\"updated-category-", "\",\"description\":\"updated-desc\"}")
+                    .withXml("<category><title>updated-category-", "</title><description>updated-desc</description></category>");
+    private static final RequestBody.Template TITLE = new RequestBody.Template("{\"title\":\"", "\"}")
+            .withXml("<instance><title>", "</title></instance>");
+    private static final RequestBody.Template LINK = new RequestBody.Template("{\"id\":", "}")
+            .withXml("<instance><id>", "</id></instance>");
+
+    public static RequestBody todo(String title) {
+        return TODO.with(title);
+    }
+
+    public static RequestBody project(String title) {
+        return PROJECT.with(title);
+    }
+
+    public static RequestBody category(String title) {
+        return CATEGORY.with(title);
+    }
+
+    /** Full replacement body used by the CRUD suites' update step. */
+    public static RequestBody updated(String collection, int id) {
+        switch (collection) {
+            case "todos": return UPDATED_TODO.with(id);
+            case "projects": return UPDATED_PROJECT.with(id);
+            case "categories": return UPDATED_CATEGORY.with(id);
+            default: throw new IllegalArgumentException(collection);
+        }
+    }
+
+    /** Title-only body, as used by the relationship suites' update step. */
+    public static RequestBody title(String title) {
+        return TITLE.with(title);
+    }
+
+    /** Body for a new instance of {@code collection} ("todos", "projects", "categories"). */
+    public static RequestBody body(String collection, String title) {
+        switch (collection) {
+            case "todos": return todo(title);
+            case "projects": return project(title);
+            case "categories": return category(title);
+            default: throw new IllegalArgumentException(collection);
+        }
+    }
+
+    // ---------- REQUESTS ----------
+    /** A request to {@code path} that accepts this Api's format. */
+    public HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder().uri(URI.create(base + path)).header("Accept", format.mediaType());
+    }
+
+    private HttpRequest withBody(String path, String method, RequestBody body) {
+        body = body.as(format);
+        return request(path)
+                .header("Content-Type", body.mediaType())
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(body.bytes()))
+                .build();
+    }
+
+    private HttpRequest json(String path, String method, JsonObject body) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+
+    /** The response body; a non-2xx status throws StatusException. */
+    public String send(HttpRequest req) throws Exception {
+        REQUESTS.increment();
+        return checked(client.send(req, HttpResponse.BodyHandlers.ofString())).body();
+    }
+
+    /** The response body; a non-2xx status fails the future with StatusException. */
+    public CompletableFuture<String> sendAsync(HttpRequest req) {
+        REQUESTS.increment();
+        return client.sendAsync(req, HttpResponse.BodyHandlers.ofString()).thenApply(r -> {
+            try {
+                return checked(r).body();
+            } catch (StatusException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private static <T> HttpResponse<T> checked(HttpResponse<T> r) throws StatusException {
+        if (r.statusCode() / 100 == 2) return r;
+        Object body = r.body();
+        throw new StatusException(r.request().method(), r.request().uri().getRawPath(), r.statusCode(),
+                body instanceof String ? (String) body : null);
+    }
+
+    private static PhasedClient.Response checked(String method, String path, PhasedClient.Response r)
+            throws StatusException {
+        if (r.status / 100 == 2) return r;
+        throw new StatusException(method, path, r.status, r.body);
+    }
+
+    /** Synchronous {@code method} on {@code path}, through PhasedClient for the pooled and fresh transports. */
+    private String call(String method, String path, RequestBody body) throws Exception {
+        if (phased == null) {
+            return send(body == null
+                    ? request(path).method(method, HttpRequest.BodyPublishers.noBody()).build()
+                    : withBody(path, method, body));
+        }
+        REQUESTS.increment();
+        return checked(method, path,
+                phased.exchange(method, path, body == null ? null : body.as(format), format.mediaType())).body;
+    }
+
+    /** GET {@code path} (which may carry a query string); returns the body. */
+    public String get(String path) throws Exception {
+        return call("GET", path, null);
+    }
+
+    /** HEAD {@code path}; returns the (2xx) status code. */
+    public int head(String path) throws Exception {
+        if (phased != null) {
+            REQUESTS.increment();
+            return checked("HEAD", path, phased.exchange("HEAD", path, null, format.mediaType())).status;
+        }
+        HttpRequest req = request(path).method("HEAD", HttpRequest.BodyPublishers.noBody()).build();
+        REQUESTS.increment();
+        return checked(client.send(req, HttpResponse.BodyHandlers.discarding())).statusCode();
+    }
+
+    /** POST /{collection} */
+    public int create(String collection, RequestBody body) throws Exception {
+        return format.extractId(call("POST", "/" + collection, body));
+    }
+
+    public CompletableFuture<Integer> createAsync(String collection, RequestBody body) {
+        return sendAsync(withBody("/" + collection, "POST", body)).thenApply(format::extractId);
+    }
+
+    /** For bodies built field by field, e.g. with extra fields to filter on. */
+    public CompletableFuture<Integer> createAsync(String collection, JsonObject body) {
+        return sendAsync(json("/" + collection, "POST", body)).thenApply(format::extractId);
+    }
+
+    /** PUT /{collection}/:id */
+    public void update(String collection, int id, RequestBody body) throws Exception {
+        call("PUT", "/" + collection + "/" + id, body);
+    }
+
+    public CompletableFuture<String> updateAsync(String collection, int id, RequestBody body) {
+        return sendAsync(withBody("/" + collection + "/" + id, "PUT", body));
+    }
+
+    /** DELETE /{collection}/:id */
+    public void delete(String collection, int id) throws Exception {
+        call("DELETE", "/" + collection + "/" + id, null);
+    }
+
+    public CompletableFuture<String> deleteAsync(String collection, int id) {
+        return sendAsync(request("/" + collection + "/" + id).DELETE().build());
+    }
+
+    /** POST /{collection}/:id/{relation} with the target's id */
+    public void link(String collection, int id, String relation, int targetId) throws Exception {
+        call("POST", "/" + collection + "/" + id + "/" + relation, LINK.with(targetId));
+    }
+
+    /** DELETE /{collection}/:id/{relation}/:targetId */
+    public void unlink(String collection, int id, String relation, int targetId) throws Exception {
+        call("DELETE", "/" + collection + "/" + id + "/" + relation + "/" + targetId, null);
+    }
+
+    // ---------- BULK ----------
+
+    /**
+     * Runs {@code op(0..count-1)} asynchronously with at most perf.inflight
+     * requests outstanding, and waits for all of them.
+     */
+    public static void parallel(int count, IntFunction<CompletableFuture<?>> op) throws Exception {
+        Semaphore permits = new Semaphore(IN_FLIGHT);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < count && failure.get() == null; i++) {
+            permits.acquire();
+            op.apply(i).whenComplete((r, e) -> {
+                if (e != null) failure.compareAndSet(null, e);
+                permits.release();
+            });
+        }
+        permits.acquire(IN_FLIGHT);
+        if (failure.get() != null) throw new ExecutionException(failure.get());
+    }
+}
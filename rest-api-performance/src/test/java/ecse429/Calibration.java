@@ -0,0 +1,76 @@
+package ecse429;
+
+import java.io.*;
+import java.nio.file.*;
+
+/**
+ * Optional offset for the harness's own cost (-Dperf.calibration=calibration.csv,
+ * written by harness-benchmarks' Calibrate). The offset is one create round
+ * trip against a loopback no-op endpoint, through the transport in use
+ * (Transport.fromProperties(): createNoop, createNoopPhased for pooled,
+ * createNoopFresh, createNoopH2c). A calibration file without that row is
+ * refused rather than the offset of another transport subtracted.
+ *
+ * Measured times stay raw. SuiteRunner writes the offset to
+ * calibration_offset.csv next to the results, and the report steps
+ * (RegressionGate, graph_all.py) take it off the add/update/delete columns,
+ * each of which times exactly one request.
+ */
+public final class Calibration {
+
+    private static final String ROW = row(Transport.fromProperties());
+
+    /** Nanoseconds of harness cost per request; 0 without -Dperf.calibration. */
+    public static final long OFFSET_NANOS = load();
+
+    private Calibration() {}
+
+    /** The HarnessBenchmarks row that times one request over {@code transport}. */
+    static String row(Transport transport) {
+        switch (transport) {
+            case POOLED: return "createNoopPhased";
+            case FRESH: return "createNoopFresh";
+            case H2C: return "createNoopH2c";
+            default: return "createNoop";
+        }
+    }
+
+    private static long load() {
+        String file = System.getProperty("perf.calibration");
+        if (file == null) return 0;
+
+        try {
+            for (String line : Files.readAllLines(Paths.get(file))) {
+                String[] f = line.split(",");
+                if (f[0].equals(ROW)) {
+                    long offset = Math.round(Double.parseDouble(f[1]));
+                    System.out.printf("Calibration: %.1fus per request (%s), recorded with the results%n", offset / 1e3, ROW);
+                    return offset;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        throw new IllegalStateException("No " + ROW + " row for -Dperf.transport=" + Transport.fromProperties()
+                + " in " + file + "; rerun harness-benchmarks/calibrate.sh");
+    }
+
+    /** Writes the offset the reports subtract (the transport's row); nothing without -Dperf.calibration. */
+    public static void writeCSV(String filename) {
+        if (System.getProperty("perf.calibration") == null) return;
+
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path(filename)))) {
+            pw.println("benchmark,offset_ms");
+            pw.printf("%s,%.6f%n", ROW, OFFSET_NANOS / 1e6);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** The offset in ms recorded under {@code dir}, or 0 if that run was not calibrated. */
+    public static double offsetMs(Path dir) throws IOException {
+        Path csv = dir.resolve("calibration_offset.csv");
+        if (!Files.exists(csv)) return 0;
+        return Double.parseDouble(Files.readAllLines(csv).get(1).split(",")[1]);
+    }
+}
@@ -1,109 +1,57 @@
 package ecse429;
 
-import com.google.gson.*;
 import org.junit.jupiter.api.Test;
-import java.net.URI;
-import java.net.http.*;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 
 public class CategoryTests {
 
-    private static final String BASE = "http://localhost:4567";
-    private static final HttpClient client = HttpClient.newHttpClient();
-    private static final int[] SCALES = {1, 5, 10, 50, 75, 100};
+    private static final Api api = new Api();
 
-    @FunctionalInterface
-    interface CheckedRunnable { void run() throws Exception; }
-
-    private long measure(CheckedRunnable r) throws Exception {
-        long start = System.nanoTime();
-        r.run();
-        return (System.nanoTime() - start) / 1_000_000;  // ms
-    }
-
-    private String send(HttpRequest req) throws Exception {
-        return client.send(req, HttpResponse.BodyHandlers.ofString()).body();
-    }
-
-    private int extractId(String json) {
-        return JsonParser.parseString(json)
-                .getAsJsonObject()
-                .get("id")
-                .getAsInt();
-    }
-
-    // -----------------------------------------------------------
-    // CATEGORY OPERATIONS
-    // -----------------------------------------------------------
-
-    /** POST /categories */
-    private int createCategory(String title) throws Exception {
-        JsonObject obj = new JsonObject();
-        obj.addProperty("title", title);
-        obj.addProperty("description", "perf-test");
-
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/categories"))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(obj.toString()))
-                .build();
+    /** POST /categories, PUT /categories/:id, DELETE /categories/:id */
+    @Test
+    public void categoryPerformance() throws Exception {
 
-        return extractId(send(req));
-    }
+        ScaleLoop.run("category_metrics.csv", (scale, i, monitor) -> {
 
-    /** PUT /categories/:id */
-    private void updateCategory(int id) throws Exception {
-        JsonObject obj = new JsonObject();
-        obj.addProperty("title", "updated-category-" + id);
-        obj.addProperty("description", "updated-desc");
+            // ---------- ADD ----------
+            int[] id = new int[1];
+            long addNs = Api.measure(() -> id[0] = api.create("categories", Api.category("cat-" + scale + "-" + i)));
+            monitor.recordAdd(scale, addNs);
 
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/categories/" + id))
-                .header("Content-Type", "application/json")
-                .PUT(HttpRequest.BodyPublishers.ofString(obj.toString()))
-                .build();
+            // ---------- UPDATE ----------
+            long updateNs = Api.measure(() -> api.update("categories", id[0], Api.updated("categories", id[0])));
+            monitor.recordUpdate(updateNs);
 
-        send(req);
+            // ---------- DELETE ----------
+            long deleteNs = Api.measure(() -> api.delete("categories", id[0]));
+            monitor.recordDelete(deleteNs);
+        });
     }
 
-    /** DELETE /categories/:id */
-    private void deleteCategory(int id) throws Exception {
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/categories/" + id))
-                .DELETE()
-                .build();
-
-        send(req);
-    }
-
-    // -----------------------------------------------------------
-    // PERFORMANCE TEST
-    // -----------------------------------------------------------
-
+    /** Same cycle with N concurrent users, enabled with -Dperf.users=1,2,4,... */
     @Test
-    public void categoryPerformance() throws Exception {
-
-        PerformanceMonitor monitor = new PerformanceMonitor();
+    @EnabledIfSystemProperty(named = "perf.users", matches = ".+")
+    public void categoryConcurrentPerformance() throws Exception {
 
-        for (int scale : SCALES) {
-            for (int i = 0; i < scale; i++) {
+        VirtualUsers load = new VirtualUsers();
 
-                final int index = i;  // <-- required for lambda usage
+        for (int users : VirtualUsers.userCounts()) {
+            load.run(users, (user, i, monitor) -> {
+                int[] id = new int[1];
 
-                // ---------- ADD ----------
-                long addMs = measure(() -> createCategory("cat-" + scale + "-" + index));
-                int id = createCategory("cat-perf-" + scale + "-" + index);
-                monitor.recordAdd(scale, addMs);
+                long addNs = Api.measure(() ->
+                        id[0] = api.create("categories", Api.category("cat-vu-" + users + "-" + user + "-" + i)));
+                monitor.recordAdd(users, addNs);
 
-                // ---------- UPDATE ----------
-                long updateMs = measure(() -> updateCategory(id));
-                monitor.recordUpdate(updateMs);
+                long updateNs = Api.measure(() ->
+                        api.update("categories", id[0], Api.updated("categories", id[0])));
+                monitor.recordUpdate(updateNs);
 
-                // ---------- DELETE ----------
-                long deleteMs = measure(() -> deleteCategory(id));
-                monitor.recordDelete(deleteMs);
-            }
+                long deleteNs = Api.measure(() -> api.delete("categories", id[0]));
+                monitor.recordDelete(deleteNs);
+            });
         }
 
-        monitor.writeCSV("category_metrics.csv");
+        load.writeCSV("category_concurrency_metrics.csv");
     }
 }
@@ -0,0 +1,124 @@
+package ecse429;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Relationship fan-out: links 10, 100, 1k, 10k todos (-Dperf.fanouts) to a
+ * single project or category and measures link, unlink, listing the related
+ * todos and deleting the parent with all of its links at each size.
+ */
+@EnabledIfSystemProperty(named = "perf.fanouts", matches = ".+")
+public class FanOutTests {
+
+    private static final Api api = new Api();
+    private static final int SAMPLES = Integer.getInteger("perf.samples", 100);
+    private static final int LIST_SAMPLES = Integer.getInteger("perf.list.samples", 10);
+
+    private static int[] fanouts() {
+        return Arrays.stream(System.getProperty("perf.fanouts").split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    }
+
+    private void run(String collection, String relation, String csv) throws Exception {
+
+        PerformanceMonitor monitor = new PerformanceMonitor();
+        int[] sizes = fanouts();
+        long[] bytes = new long[sizes.length];
+        double[] deleteParentMs = new double[sizes.length];
+
+        for (int s = 0; s < sizes.length; s++) {
+            int fanout = sizes[s];
+
+            int parent = api.create(collection, Api.body(collection, "fanout-" + fanout));
+            int[] todos = new int[fanout];
+            Api.parallel(fanout, i -> api.createAsync("todos", Api.todo("fanout-todo-" + fanout + "-" + i))
+                    .thenAccept(id -> todos[i] = id));
+
+            int[] extra = new int[SAMPLES];
+            Api.parallel(SAMPLES, i -> api.createAsync("todos", Api.todo("fanout-extra-" + fanout + "-" + i))
+                    .thenAccept(id -> extra[i] = id));
+
+            // ---------- LINK ----------
+            // grow to the fan-out untimed, then link each extra todo at this size and unlink it again
+            for (int todo : todos) api.link(collection, parent, relation, todo);
+            for (int todo : extra) {
+                long linkNs = Api.measure(() -> api.link(collection, parent, relation, todo));
+                monitor.record("link", fanout, linkNs);
+                api.unlink(collection, parent, relation, todo);
+            }
+
+            // ---------- LIST RELATED ----------
+            String path = "/" + collection + "/" + parent + "/" + relation;
+            for (int i = 0; i < LIST_SAMPLES; i++) {
+                String[] body = new String[1];
+                long getNs = Api.measure(() -> body[0] = api.get(path));
+                monitor.record("get_related", fanout, getNs);
+                bytes[s] = body[0].getBytes(StandardCharsets.UTF_8).length;
+            }
+
+            // ---------- UNLINK ----------
+            // spread the samples over the whole fan-out and put each link back
+            int step = Math.max(1, fanout / SAMPLES);
+            for (int i = 0; i < fanout; i += step) {
+                int todo = todos[i];
+                long unlinkNs = Api.measure(() -> api.unlink(collection, parent, relation, todo));
+                monitor.record("unlink", fanout, unlinkNs);
+                api.link(collection, parent, relation, todo);
+            }
+
+            // ---------- DELETE PARENT ----------
+            long deleteNs = Api.measure(() -> api.delete(collection, parent));
+            monitor.record("delete_parent", fanout, deleteNs);
+            deleteParentMs[s] = deleteNs / 1e6;
+
+            Api.parallel(fanout, i -> api.deleteAsync("todos", todos[i]));
+            Api.parallel(SAMPLES, i -> api.deleteAsync("todos", extra[i]));
+            System.out.printf("%s/%s: fan-out %d done%n", collection, relation, fanout);
+        }
+
+        writeCSV(csv + "_fanout_metrics.csv", monitor, sizes, bytes, deleteParentMs);
+        monitor.writeLatencyCSV(csv + "_fanout_metrics_latency.csv");
+    }
+
+    private static void writeCSV(String filename, PerformanceMonitor monitor, int[] sizes,
+                                 long[] bytes, double[] deleteParentMs) {
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path(filename)))) {
+
+            pw.println(
+                "fanout,link_p50_ms,link_p99_ms,unlink_p50_ms,unlink_p99_ms," +
+                "get_p50_ms,get_p99_ms,payload_bytes,delete_parent_ms"
+            );
+
+            for (int s = 0; s < sizes.length; s++) {
+                LatencyHistogram link = monitor.histogram("link", sizes[s]);
+                LatencyHistogram unlink = monitor.histogram("unlink", sizes[s]);
+                LatencyHistogram get = monitor.histogram("get_related", sizes[s]);
+                pw.printf(
+                    "%d,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%d,%.4f%n",
+                    sizes[s],
+                    link.percentile(50) / 1e6, link.percentile(99) / 1e6,
+                    unlink.percentile(50) / 1e6, unlink.percentile(99) / 1e6,
+                    get.percentile(50) / 1e6, get.percentile(99) / 1e6,
+                    bytes[s], deleteParentMs[s]
+                );
+            }
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void projectTasksFanOutPerformance() throws Exception {
+        run("projects", "tasks", "project_tasks");
+    }
+
+    @Test
+    public void categoryTodosFanOutPerformance() throws Exception {
+        run("categories", "todos", "category_todos");
+    }
+}
@@ -0,0 +1,338 @@
+package ecse429;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import com.sun.tools.attach.VirtualMachine;
+import java.io.*;
+import java.lang.management.*;
+import java.util.*;
+import javax.management.*;
+import javax.management.openmbean.CompositeData;
+import javax.management.remote.*;
+
+/**
+ * Optional GC and heap telemetry from the server JVM (-Dperf.gc=true).
+ *
+ * Attaches to the server process found by ServerProcess, starts its local
+ * management agent and connects over JMX; with -Dperf.embedded the server
+ * is this JVM and its platform MBeans are used directly. GC pauses arrive
+ * as JMX notifications. Heap occupancy and allocation rate (heap growth
+ * plus what the collections freed) are polled every perf.gc.sample.ms
+ * (default 100), and safepoint time every perf.gc.safepoint.ms (default
+ * 1000) from `jcmd PerfCounter.print`, forked on the probe thread since
+ * the counters are not exposed over JMX.
+ *
+ * PerformanceMonitor asks how much pause time overlapped each op, and holds
+ * rows back until the probe has seen every collection up to them.
+ */
+public class GcProbe {
+
+    private static final long SAMPLE_MS = Long.getLong("perf.gc.sample.ms", 100);
+    private static final long SAFEPOINT_MS = Long.getLong("perf.gc.safepoint.ms", 1000);
+    private static final int CAPACITY = 16384;
+
+    private static class Pause {
+        long startNano, endNano;
+        String collector, action, cause;
+        long beforeBytes, afterBytes;
+    }
+
+    private static class HeapSample {
+        long nano;
+        long usedBytes, committedBytes;
+        double allocBytesPerSec;
+        double safepointMs;
+        long safepoints;
+    }
+
+    private static GcProbe shared;
+    private static boolean tried;
+    private static String triedFor;     // perf.server.pid at the time, which ServerLifecycle changes on restart
+
+    /** The probe for the current server, or null if disabled or it cannot attach. */
+    public static synchronized GcProbe shared() {
+        String pid = System.getProperty("perf.server.pid");
+        if (tried && !Objects.equals(pid, triedFor)) {
+            if (shared != null) shared.close();
+            shared = null;
+            tried = false;
+        }
+        if (!tried) {
+            triedFor = pid;
+            tried = true;
+            if (Boolean.getBoolean("perf.gc")) {
+                ServerProcess server = ServerProcess.find().orElse(null);
+                try {
+                    if (server == null) throw new IOException("server process not found");
+                    shared = new GcProbe(server.pid());
+                } catch (Exception e) {
+                    System.out.println("GC probe disabled: " + e);
+                }
+            }
+        }
+        return shared;
+    }
+
+    private final long pid;
+    private final JMXConnector connector;      // null when attached to this JVM
+    private final MBeanServerConnection conn;
+    private final Thread poller;
+    private final List<ObjectName> collectors = new ArrayList<>();
+
+    // server epoch ms <-> local nanoTime, both read from the same host clock
+    private final long baseNano = System.nanoTime();
+    private final long baseEpochMs = System.currentTimeMillis();
+    private final long vmStartEpochMs;
+
+    private final Deque<Pause> pauses = new ArrayDeque<>();
+    private final Deque<HeapSample> heap = new ArrayDeque<>();
+    private final long baseCount;      // CollectionCount at attach; notified only counts what came after
+    private long notified, freedBytes;
+    private volatile long watermark;
+
+    private GcProbe(long pid) throws Exception {
+        this.pid = pid;
+        this.connector = pid == ProcessHandle.current().pid() ? null : connect(pid);
+        this.conn = connector == null ? ManagementFactory.getPlatformMBeanServer() : connector.getMBeanServerConnection();
+        this.vmStartEpochMs = (Long) conn.getAttribute(new ObjectName(ManagementFactory.RUNTIME_MXBEAN_NAME), "StartTime");
+
+        NotificationListener listener = (n, handback) -> {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(n.getType())) {
+                onGc(GarbageCollectionNotificationInfo.from((CompositeData) n.getUserData()));
+            }
+        };
+        for (ObjectName gc : conn.queryNames(new ObjectName(ManagementFactory.GARBAGE_COLLECTOR_MXBEAN_DOMAIN_TYPE + ",*"), null)) {
+            collectors.add(gc);
+            conn.addNotificationListener(gc, listener, null, null);
+        }
+        // read after subscribing: a collection in between is both counted here and notified, which only errs early
+        baseCount = collectionCount();
+
+        poller = new Thread(this::loop, "gc-probe");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    private static JMXConnector connect(long pid) throws Exception {
+        VirtualMachine vm = VirtualMachine.attach(String.valueOf(pid));
+        try {
+            String url = vm.startLocalManagementAgent();
+            return JMXConnectorFactory.connect(new JMXServiceURL(url));
+        } finally {
+            vm.detach();
+        }
+    }
+
+    /** Stops polling and drops the connection, e.g. once the server was restarted. */
+    private void close() {
+        poller.interrupt();
+        if (connector == null) return;
+        try {
+            connector.close();
+        } catch (IOException e) {
+            // the server is usually gone already
+        }
+    }
+
+    private long toNano(long epochMs) {
+        return baseNano + (epochMs - baseEpochMs) * 1_000_000L;
+    }
+
+    private long toEpochMs(long nano) {
+        return baseEpochMs + (nano - baseNano) / 1_000_000L;
+    }
+
+    // ---------- EVENTS ----------
+
+    private synchronized void onGc(GarbageCollectionNotificationInfo info) {
+        notified++;
+        GcInfo gc = info.getGcInfo();
+
+        long before = 0, after = 0;
+        for (MemoryUsage u : gc.getMemoryUsageBeforeGc().values()) before += u.getUsed();
+        for (MemoryUsage u : gc.getMemoryUsageAfterGc().values()) after += u.getUsed();
+        freedBytes += Math.max(0, before - after);
+
+        // concurrent cycles (ZGC Cycles, G1 Concurrent GC) are not pauses
+        String name = info.getGcName();
+        if (name.contains("Cycles") || name.contains("Concurrent")) return;
+
+        Pause p = new Pause();
+        p.startNano = toNano(vmStartEpochMs + gc.getStartTime());
+        p.endNano = p.startNano + gc.getDuration() * 1_000_000L;
+        p.collector = name;
+        p.action = info.getGcAction();
+        p.cause = info.getGcCause();
+        p.beforeBytes = before;
+        p.afterBytes = after;
+
+        pauses.addLast(p);
+        if (pauses.size() > CAPACITY) pauses.removeFirst();
+    }
+
+    /** Pause time overlapping [startNano, endNano], in ms. */
+    public synchronized double pauseOverlapMs(long startNano, long endNano) {
+        long overlap = 0;
+        for (Iterator<Pause> it = pauses.descendingIterator(); it.hasNext(); ) {
+            Pause p = it.next();
+            if (p.endNano < startNano - 60_000_000_000L) break;     // far older than any request
+            overlap += Math.max(0, Math.min(endNano, p.endNano) - Math.max(startNano, p.startNano));
+        }
+        return overlap / 1e6;
+    }
+
+    /** nanoTime up to which every collection has been reported. */
+    public long watermark() {
+        return watermark;
+    }
+
+    /** Waits (up to {@code timeoutMs}) until the watermark passes {@code nanoTime}. */
+    public void awaitWatermark(long nanoTime, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000L;
+        while (watermark < nanoTime && System.nanoTime() < deadline) Thread.sleep(SAMPLE_MS / 2 + 1);
+    }
+
+    /** Heap used at the last poll, or -1 before the first. */
+    public synchronized long heapUsedBytes() {
+        HeapSample s = heap.peekLast();
+        return s == null ? -1 : s.usedBytes;
+    }
+
+    /**
+     * Runs a full collection in the server (System.gc() through JMX) and
+     * returns the heap still used after it: the live set, for leak checks.
+     */
+    public long liveHeapBytes() throws Exception {
+        ObjectName memory = new ObjectName(ManagementFactory.MEMORY_MXBEAN_NAME);
+        conn.invoke(memory, "gc", null, null);
+        return MemoryUsage.from((CompositeData) conn.getAttribute(memory, "HeapMemoryUsage")).getUsed();
+    }
+
+    // ---------- POLLING ----------
+
+    /** Collections since the server JVM started, summed over its collectors. */
+    private long collectionCount() throws Exception {
+        long count = 0;
+        for (ObjectName gc : collectors) count += (Long) conn.getAttribute(gc, "CollectionCount");
+        return count;
+    }
+
+    private void loop() {
+        ObjectName memory;
+        try {
+            memory = new ObjectName(ManagementFactory.MEMORY_MXBEAN_NAME);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        }
+
+        long lastUsed = -1, lastNano = 0, lastSafepoint = 0;
+        double[] safepoint = readSafepoints(), lastSafepointTotals = safepoint;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                long now = System.nanoTime();
+                long count = collectionCount() - baseCount;
+                MemoryUsage usage = MemoryUsage.from((CompositeData) conn.getAttribute(memory, "HeapMemoryUsage"));
+
+                HeapSample s = new HeapSample();
+                s.nano = now;
+                s.usedBytes = usage.getUsed();
+                s.committedBytes = usage.getCommitted();
+
+                if (now - lastSafepoint >= SAFEPOINT_MS * 1_000_000L) {
+                    safepoint = readSafepoints();
+                    if (safepoint != null && lastSafepointTotals != null) {
+                        s.safepointMs = safepoint[0] - lastSafepointTotals[0];
+                        s.safepoints = (long) (safepoint[1] - lastSafepointTotals[1]);
+                    }
+                    lastSafepointTotals = safepoint;
+                    lastSafepoint = now;
+                }
+
+                synchronized (this) {
+                    if (lastUsed >= 0) {
+                        s.allocBytesPerSec = Math.max(0, s.usedBytes - lastUsed + freedBytes) / ((now - lastNano) / 1e9);
+                    }
+                    freedBytes = 0;
+                    heap.addLast(s);
+                    if (heap.size() > CAPACITY) heap.removeFirst();
+
+                    // notifications can trail the collection; trust this point only once they caught up
+                    if (notified >= count) watermark = now;
+                }
+                lastUsed = s.usedBytes;
+                lastNano = now;
+
+                Thread.sleep(SAMPLE_MS);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                // server gone or agent hiccup: keep the last watermark, try again
+                try {
+                    Thread.sleep(SAMPLE_MS);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /** {total safepoint ms, safepoint count}, or null if jcmd is unavailable. */
+    private double[] readSafepoints() {
+        try {
+            Process p = new ProcessBuilder(System.getProperty("java.home") + "/bin/jcmd",
+                    String.valueOf(pid), "PerfCounter.print").redirectErrorStream(true).start();
+            double ticks = 0, count = 0, frequency = 1e9;
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    if (line.startsWith("sun.rt.safepointTime=")) ticks = value(line);
+                    else if (line.startsWith("sun.rt.safepoints=")) count = value(line);
+                    else if (line.startsWith("sun.os.hrt.frequency=")) frequency = value(line);
+                }
+            }
+            p.waitFor();
+            return new double[] {ticks / frequency * 1e3, count};
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static double value(String line) {
+        return Double.parseDouble(line.substring(line.indexOf('=') + 1).trim());
+    }
+
+    // ---------- CSV OUTPUT ----------
+
+    /**
+     * Writes the pauses and heap samples since {@code fromNano} to
+     * &lt;name&gt;_gc_pauses.csv and &lt;name&gt;_gc_heap.csv, with epoch-ms
+     * times to line up with the metrics CSV's timestamp column.
+     */
+    public synchronized void writeCSV(String filename, long fromNano) {
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path(filename.replace(".csv", "_gc_pauses.csv"))))) {
+            pw.println("timestamp,duration_ms,collector,action,cause,before_mb,after_mb");
+            for (Pause p : pauses) {
+                if (p.endNano < fromNano) continue;
+                pw.printf("%d,%.3f,%s,%s,%s,%.2f,%.2f%n",
+                        toEpochMs(p.startNano), (p.endNano - p.startNano) / 1e6,
+                        p.collector, p.action, p.cause,
+                        p.beforeBytes / 1048576.0, p.afterBytes / 1048576.0);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path(filename.replace(".csv", "_gc_heap.csv"))))) {
+            pw.println("timestamp,heap_used_mb,heap_committed_mb,alloc_mb_s,safepoint_ms,safepoints");
+            for (HeapSample s : heap) {
+                if (s.nano < fromNano) continue;
+                pw.printf("%d,%.2f,%.2f,%.2f,%.3f,%d%n",
+                        toEpochMs(s.nano), s.usedBytes / 1048576.0, s.committedBytes / 1048576.0,
+                        s.allocBytesPerSec / 1048576.0, s.safepointMs, s.safepoints);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ecse429;
+
+import java.util.*;
+
+/**
+ * Picks which of {@code n} stored keys the next read goes to. Not thread-safe:
+ * give each thread its own chooser.
+ */
+@FunctionalInterface
+public interface KeyChooser {
+
+    /** Index in [0, n). */
+    int next();
+
+    /** Every key equally likely. */
+    static KeyChooser uniform(int n, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        return () -> rnd.nextInt(n);
+    }
+
+    /** {@code hotProbability} of reads go to the first {@code hotFraction} of keys. */
+    static KeyChooser hotSpot(int n, double hotFraction, double hotProbability, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int hot = Math.max(1, (int) (n * hotFraction));
+        return () -> rnd.nextDouble() < hotProbability || hot == n
+                ? rnd.nextInt(hot)
+                : hot + rnd.nextInt(n - hot);
+    }
+
+    /**
+     * Zipfian with exponent {@code s}: key k has weight 1/(k+1)^s. Ranks are
+     * shuffled onto keys so the hot keys are not simply the oldest ones.
+     */
+    static KeyChooser zipfian(int n, double s, long seed) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) cdf[k] = sum += 1.0 / Math.pow(k + 1, s);
+        for (int k = 0; k < n; k++) cdf[k] /= sum;
+
+        int[] keyOfRank = new int[n];
+        for (int k = 0; k < n; k++) keyOfRank[k] = k;
+        SplittableRandom rnd = new SplittableRandom(seed);
+        for (int k = n - 1; k > 0; k--) {
+            int j = rnd.nextInt(k + 1);
+            int t = keyOfRank[k]; keyOfRank[k] = keyOfRank[j]; keyOfRank[j] = t;
+        }
+
+        return () -> {
+            int rank = Arrays.binarySearch(cdf, rnd.nextDouble());
+            return keyOfRank[Math.min(rank < 0 ? -rank - 1 : rank, n - 1)];
+        };
+    }
+
+    /** "uniform", "hotspot" (90% of reads on 10% of keys) or "zipfian" (s = 0.99). */
+    static KeyChooser named(String name, int n, long seed) {
+        switch (name) {
+            case "uniform": return uniform(n, seed);
+            case "hotspot": return hotSpot(n, 0.1, 0.9, seed);
+            case "zipfian": return zipfian(n, 0.99, seed);
+            default: throw new IllegalArgumentException("Unknown key distribution: " + name);
+        }
+    }
+}
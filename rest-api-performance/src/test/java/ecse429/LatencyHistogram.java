@@ -0,0 +1,115 @@
+package ecse429;
+
+import java.util.*;
+
+/**
+ * Constant-memory log-linear latency histogram in nanoseconds.
+ *
+ * Values below 2^SUB_BITS are counted exactly; above that every power of two
+ * is split into 2^(SUB_BITS-1) linear buckets, so the relative error stays
+ * under 1%. Recording never allocates. Instances are single-writer: give each
+ * thread (or run) its own histogram and {@link #merge} them afterwards.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 8;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF = SUB_COUNT >> 1;
+    private static final int MAX_BIT = 40;                  // ~18 minutes
+    private static final long MAX_VALUE = (1L << MAX_BIT) - 1;
+    private static final int BUCKETS = SUB_COUNT + (MAX_BIT - SUB_BITS) * HALF;
+
+    private final long[] counts = new long[BUCKETS];
+    private long total;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    // ---------- RECORDING ----------
+    public void record(long nanos) {
+        long v = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts[index(v)]++;
+        total++;
+        sum += v;
+        if (v < min) min = v;
+        if (v > max) max = v;
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        total += other.total;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        total = sum = max = 0;
+        min = Long.MAX_VALUE;
+    }
+
+    private static int index(long v) {
+        if (v < SUB_COUNT) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - (SUB_BITS - 1);
+        return SUB_COUNT + (shift - 1) * HALF + (int) ((v >>> shift) - HALF);
+    }
+
+    /** Midpoint of the value range covered by bucket {@code i}. */
+    private static long valueAt(int i) {
+        if (i < SUB_COUNT) return i;
+        int shift = (i - SUB_COUNT) / HALF + 1;
+        long low = ((long) ((i - SUB_COUNT) % HALF + HALF)) << shift;
+        return low + ((1L << shift) >> 1);
+    }
+
+    // ---------- QUERIES ----------
+    public long count() { return total; }
+
+    public long max() { return max; }
+
+    public long min() { return total == 0 ? 0 : min; }
+
+    public double mean() { return total == 0 ? 0 : (double) sum / total; }
+
+    /** Value at the given percentile (0-100), in nanoseconds. */
+    public long percentile(double p) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(Math.max(valueAt(i), min), max);
+        }
+        return max;
+    }
+
+    // ---------- PERSISTENCE ----------
+
+    /** Sparse "index:count" list, so histograms from other runs can be merged back in. */
+    public String encode() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(min()).append(' ').append(max).append(' ').append(sum);
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] != 0) sb.append(' ').append(i).append(':').append(counts[i]);
+        }
+        return sb.toString();
+    }
+
+    public static LatencyHistogram decode(String encoded) {
+        LatencyHistogram h = new LatencyHistogram();
+        String[] parts = encoded.trim().split(" ");
+        for (int i = 3; i < parts.length; i++) {
+            int colon = parts[i].indexOf(':');
+            long c = Long.parseLong(parts[i].substring(colon + 1));
+            h.counts[Integer.parseInt(parts[i].substring(0, colon))] += c;
+            h.total += c;
+        }
+        if (h.total > 0) {
+            h.min = Long.parseLong(parts[0]);
+            h.max = Long.parseLong(parts[1]);
+            h.sum = Long.parseLong(parts[2]);
+        }
+        return h;
+    }
+}
@@ -0,0 +1,138 @@
+package ecse429;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load at a constant arrival rate.
+ *
+ * Request i is due at start + i / rate whether or not earlier requests have
+ * finished. Latency is recorded twice: from the intended send time
+ * ("corrected", free of coordinated omission) and from the moment the request
+ * was actually handed to the client ("uncorrected"). The difference is the
+ * queueing a closed loop would have hidden.
+ */
+public class OpenLoop {
+
+    /** Starts one asynchronous request; the future completes when the response is in. */
+    @FunctionalInterface
+    public interface AsyncOp { CompletableFuture<?> start(int index); }
+
+    private static final String RATES = System.getProperty("perf.rate", "500");
+    private static final long DURATION_S = Long.getLong("perf.duration", 10);
+    private static final long DRAIN_S = Long.getLong("perf.drain", 30);
+
+    private static class Level {
+        int rate;
+        int sent, completed, errors, maxInFlight;
+        long elapsedNanos;
+    }
+
+    private final String op;
+    private final PerformanceMonitor monitor = new PerformanceMonitor();
+    private final List<Level> levels = new ArrayList<>();
+
+    /** @param op name used for the histograms, e.g. "add" */
+    public OpenLoop(String op) {
+        this.op = op;
+    }
+
+    /** Target rates in requests per second, from -Dperf.rate=100,500,... */
+    public static int[] rates() {
+        return Arrays.stream(RATES.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    }
+
+    // ---------- EXECUTION ----------
+
+    /** Issues requests at {@code rate} per second for perf.duration seconds. */
+    public void run(int rate, AsyncOp asyncOp) throws InterruptedException {
+        Level level = new Level();
+        level.rate = rate;
+
+        long interval = 1_000_000_000L / rate;
+        int total = (int) (rate * DURATION_S);
+        AtomicInteger inFlight = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(total);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long intended = start + i * interval;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) LockSupport.parkNanos(wait);
+
+            long actual = System.nanoTime();
+            level.maxInFlight = Math.max(level.maxInFlight, inFlight.incrementAndGet());
+            level.sent++;
+
+            CompletableFuture<?> f;
+            try {
+                f = asyncOp.start(i);
+            } catch (RuntimeException e) {
+                f = CompletableFuture.failedFuture(e);
+            }
+            f.whenComplete((r, e) -> {
+                long end = System.nanoTime();
+                inFlight.decrementAndGet();
+                synchronized (monitor) {
+                    monitor.record(op + "_corrected", rate, end - intended);
+                    monitor.record(op + "_uncorrected", rate, end - actual);
+                    if (e != null) level.errors++; else level.completed++;
+                }
+                done.countDown();
+            });
+        }
+
+        if (!done.await(DRAIN_S, TimeUnit.SECONDS)) {
+            System.out.printf("rate=%d: %d requests still in flight after drain%n", rate, done.getCount());
+        }
+        level.elapsedNanos = System.nanoTime() - start;
+
+        synchronized (monitor) {
+            levels.add(level);
+            LatencyHistogram c = monitor.histogram(op + "_corrected", rate);
+            LatencyHistogram u = monitor.histogram(op + "_uncorrected", rate);
+            System.out.printf("rate=%d p99 corrected=%.2fms uncorrected=%.2fms errors=%d%n",
+                    rate, c.percentile(99) / 1e6, u.percentile(99) / 1e6, level.errors);
+        }
+    }
+
+    // ---------- CSV OUTPUT ----------
+
+    /** One row per target rate; both distributions also go to the _latency.csv. */
+    public void writeCSV(String filename) {
+        synchronized (monitor) {
+            try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path(filename)))) {
+
+                pw.println(
+                    "rate,sent,completed,errors,achieved_rps,max_in_flight," +
+                    "corrected_p50_ms,corrected_p99_ms,corrected_p999_ms,corrected_max_ms," +
+                    "uncorrected_p50_ms,uncorrected_p99_ms,uncorrected_p999_ms,uncorrected_max_ms"
+                );
+
+                for (Level l : levels) {
+                    LatencyHistogram c = monitor.histogram(op + "_corrected", l.rate);
+                    LatencyHistogram u = monitor.histogram(op + "_uncorrected", l.rate);
+                    pw.printf(
+                        "%d,%d,%d,%d,%.2f,%d,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f%n",
+                        l.rate, l.sent, l.completed, l.errors,
+                        l.completed / (l.elapsedNanos / 1e9), l.maxInFlight,
+
+                        c.percentile(50) / 1e6, c.percentile(99) / 1e6,
+                        c.percentile(99.9) / 1e6, c.max() / 1e6,
+
+                        u.percentile(50) / 1e6, u.percentile(99) / 1e6,
+                        u.percentile(99.9) / 1e6, u.max() / 1e6
+                    );
+                }
+
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            monitor.writeLatencyCSV(filename.replace(".csv", "_latency.csv"));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ecse429;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+
+/**
+ * Resolves where result files go.
+ *
+ * -Dperf.out=dir puts them under dir (created on first use); by default they
+ * land in the working directory. Read on every call, so SuiteRunner can give
+ * each suite its own directory within one JVM.
+ */
+public final class Output {
+
+    private Output() {}
+
+    public static String path(String filename) {
+        String dir = System.getProperty("perf.out", "");
+        if (dir.isEmpty()) return filename;
+
+        try {
+            Files.createDirectories(Paths.get(dir));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Paths.get(dir, filename).toString();
+    }
+}
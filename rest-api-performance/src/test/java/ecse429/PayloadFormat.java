@@ -0,0 +1,126 @@
+package ecse429;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.io.StringReader;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+/**
+ * The media type Api sends and asks for (-Dperf.format, default json). With
+ * xml every request carries Accept and Content-Type application/xml and the
+ * bodies are the XML twins of Api's JSON templates:
+ * {@code <todo><title>t</title>...</todo>}.
+ */
+public enum PayloadFormat {
+    JSON("application/json"), XML("application/xml");
+
+    private static final ThreadLocal<DocumentBuilder> XML_PARSER = ThreadLocal.withInitial(() -> {
+        try {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
+    private final String mediaType;
+
+    PayloadFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public static PayloadFormat fromProperties() {
+        return parse(System.getProperty("perf.format", "json"));
+    }
+
+    public static PayloadFormat parse(String format) {
+        return valueOf(format.trim().toUpperCase());
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    /** The created instance's id from a POST response. */
+    public int extractId(String body) {
+        if (this == JSON) return Api.extractId(body);
+
+        int start = body.indexOf("<id>");
+        int end = start < 0 ? -1 : body.indexOf("</id>", start);
+        if (end < 0) throw new IllegalStateException("No id in " + body);
+        return Integer.parseInt(body.substring(start + 4, end).trim());
+    }
+
+    /**
+     * The id of the instance in {@code head}, the start of a response, or -1
+     * until head holds all of it.
+     */
+    public int findId(String head) {
+        if (this == XML) {
+            int start = head.indexOf("<id>");
+            int end = start < 0 ? -1 : head.indexOf("</id>", start);
+            return end < 0 ? -1 : Integer.parseInt(head.substring(start + 4, end).trim());
+        }
+
+        try (JsonReader reader = new JsonReader(new StringReader(head))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("id")) {
+                    reader.skipValue();
+                    continue;
+                }
+                int id = reader.nextInt();
+                reader.peek();      // throws if the value ran into the end of head
+                return id;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // cut off before the id was complete
+        }
+        return -1;
+    }
+
+    /**
+     * Fully parses a response as a client would before using it, and returns
+     * how many instances it holds: the length of the wrapped list, or 1 for
+     * a single instance.
+     */
+    public int parseInstances(String body, String collection) {
+        if (this == JSON) {
+            JsonObject obj = JsonParser.parseString(body).getAsJsonObject();
+            JsonElement list = obj.get(collection);
+            return list instanceof JsonArray ? ((JsonArray) list).size() : 1;
+        }
+
+        Element root = parseXml(body);
+        if (!root.getTagName().equals(collection)) return 1;
+        int n = 0;
+        for (Node c = root.getFirstChild(); c != null; c = c.getNextSibling()) {
+            if (c.getNodeType() == Node.ELEMENT_NODE) n++;
+        }
+        return n;
+    }
+
+    /** The document element of {@code xml}, with a DOM parser kept per thread. */
+    static Element parseXml(String xml) {
+        try {
+            DocumentBuilder parser = XML_PARSER.get();
+            parser.reset();
+            return parser.parse(new InputSource(new StringReader(xml))).getDocumentElement();
+        } catch (Exception e) {
+            throw new IllegalStateException("Bad XML: " + xml, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase();
+    }
+}
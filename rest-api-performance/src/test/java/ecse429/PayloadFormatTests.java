@@ -0,0 +1,128 @@
+package ecse429;
+
+import java.io.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * JSON against XML for the same todo requests, enabled with
+ * -Dperf.formats=json,xml: a create and a GET by id (one small instance),
+ * then the full list at each -Dperf.formats.lists size (default
+ * 10,100,1000; the store is topped up to each size first).
+ *
+ * Each request goes over a pooled PhasedClient, so its time splits into
+ * time to first byte (the server handling and serializing it) and body
+ * transfer. The response is then fully parsed, as a client using it would,
+ * and that is timed on its own. Bytes are counted as they come off the
+ * socket.
+ */
+@EnabledIfSystemProperty(named = "perf.formats", matches = ".+")
+public class PayloadFormatTests {
+
+    private static final String FORMATS = System.getProperty("perf.formats", "");
+    private static final String LISTS = System.getProperty("perf.formats.lists", "10,100,1000");
+    private static final int SAMPLES = Integer.getInteger("perf.formats.samples", 100);
+
+    private static class Shape {
+        final LatencyHistogram total = new LatencyHistogram();
+        final LatencyHistogram ttfb = new LatencyHistogram();
+        final LatencyHistogram body = new LatencyHistogram();
+        final LatencyHistogram parse = new LatencyHistogram();
+        long requestBytes, responseBytes, instances;
+    }
+
+    private final PhasedClient client = new PhasedClient(Target.base());
+    private final Api seeder = new Api(Target.base(), Transport.DEFAULT, PayloadFormat.JSON);
+
+    /** One request, timed; {@code n} is the sample number, negative for warmup. */
+    private PhasedClient.Response sample(Shape shape, int n, PayloadFormat format, String method, String path,
+                                         RequestBody body) throws Exception {
+        PhasedClient.Timed t = client.timed(method, path, body, format.mediaType(), null);
+
+        long t0 = System.nanoTime();
+        int instances = format.parseInstances(t.response.body, "todos");
+        long parseNs = System.nanoTime() - t0;
+
+        if (n >= 0) {
+            shape.total.record(t.nanos);
+            shape.ttfb.record(t.ttfbNanos);
+            shape.body.record(t.bodyNanos);
+            shape.parse.record(parseNs);
+            shape.requestBytes = body == null ? 0 : body.length();
+            shape.responseBytes = t.response.bytes;
+            shape.instances = instances;
+        }
+        return t.response;
+    }
+
+    @Test
+    public void todoFormats() throws Exception {
+
+        List<Integer> seeded = new ArrayList<>();
+        int[] sizes = Arrays.stream(LISTS.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).sorted().toArray();
+        seeded.add(seeder.create("todos", Api.todo("format-get")));
+
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path("todo_format_metrics.csv")))) {
+
+            pw.println("format,shape,instances,request_body_bytes,response_bytes,p50_ms,p99_ms,"
+                    + "ttfb_p50_ms,ttfb_p99_ms,body_p50_ms,parse_p50_ms,parse_p99_ms");
+
+            Map<String, Shape> shapes = new LinkedHashMap<>();
+            for (String name : FORMATS.split(",")) {
+                PayloadFormat format = PayloadFormat.parse(name);
+
+                Shape create = new Shape();
+                for (int i = -SAMPLES / 10; i < SAMPLES; i++) {
+                    PhasedClient.Response r = sample(create, i, format, "POST", "/todos",
+                            Api.todo("format-" + format + "-" + i).as(format));
+                    seeder.delete("todos", format.extractId(r.body));
+                }
+                shapes.put(format + ",create", create);
+
+                Shape get = new Shape();
+                for (int i = -SAMPLES / 10; i < SAMPLES; i++) {
+                    sample(get, i, format, "GET", "/todos/" + seeded.get(0), null);
+                }
+                shapes.put(format + ",get", get);
+            }
+
+            for (int size : sizes) {
+                int have = existing();
+                if (have < size) {
+                    int[] ids = new int[size - have];
+                    Api.parallel(ids.length, i -> seeder.createAsync("todos", Api.todo("format-list-" + i))
+                            .thenAccept(id -> ids[i] = id));
+                    for (int id : ids) seeded.add(id);
+                }
+
+                for (String name : FORMATS.split(",")) {
+                    PayloadFormat format = PayloadFormat.parse(name);
+                    Shape list = new Shape();
+                    for (int i = -SAMPLES / 10; i < SAMPLES; i++) {
+                        sample(list, i, format, "GET", "/todos", null);
+                    }
+                    shapes.put(format + ",list_" + size, list);
+                }
+            }
+
+            for (Map.Entry<String, Shape> e : shapes.entrySet()) {
+                Shape s = e.getValue();
+                pw.printf("%s,%d,%d,%d,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f%n",
+                        e.getKey(), s.instances, s.requestBytes, s.responseBytes,
+                        s.total.percentile(50) / 1e6, s.total.percentile(99) / 1e6,
+                        s.ttfb.percentile(50) / 1e6, s.ttfb.percentile(99) / 1e6,
+                        s.body.percentile(50) / 1e6,
+                        s.parse.percentile(50) / 1e6, s.parse.percentile(99) / 1e6);
+                System.out.printf("%s: %d bytes, %.3fms, parse %.3fms%n", e.getKey(), s.responseBytes,
+                        s.total.percentile(50) / 1e6, s.parse.percentile(50) / 1e6);
+            }
+        } finally {
+            Api.parallel(seeded.size(), i -> seeder.deleteAsync("todos", seeded.get(i)));
+        }
+    }
+
+    private int existing() throws Exception {
+        return PayloadFormat.JSON.parseInstances(seeder.get("/todos"), "todos");
+    }
+}
@@ -0,0 +1,183 @@
+package ecse429;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Todo POST and PUT with bodies of increasing size, enabled with
+ * -Dperf.payload.sizes=100,1k,10k,100k,1m (request body bytes).
+ *
+ * Each size is sent with every -Dperf.payload.content (ascii, unicode:
+ * multi-byte and surrogate pairs, escaped: quotes, backslashes and control
+ * characters) and -Dperf.payload.fields (1: all in the description, 2: split
+ * between title and description; todos accept no other free-text fields).
+ * Bodies are encoded once per size and copied from a reused buffer per
+ * request, and each echoed response is kept only until its id has been
+ * read, so the client costs little beyond moving bytes.
+ *
+ * Per size, todo_payload_metrics.csv splits the time into writing the body,
+ * waiting for the first response byte (the server parsing, storing and
+ * serializing) and reading the echo, and names the largest as the
+ * bottleneck. todo_payload_knee.csv gives, per content/fields/op, the size
+ * with the best MB/s: past it each extra byte costs more than the last.
+ */
+@EnabledIfSystemProperty(named = "perf.payload.sizes", matches = ".+")
+public class PayloadSizeTests {
+
+    private static final String SIZES = System.getProperty("perf.payload.sizes", "");
+    private static final String[] CONTENT = System.getProperty("perf.payload.content", "ascii,unicode,escaped").split(",");
+    private static final String[] FIELDS = System.getProperty("perf.payload.fields", "1,2").split(",");
+    private static final int SAMPLES = Integer.getInteger("perf.payload.samples", 20);
+
+    private static final Map<String, String> UNITS = Map.of(
+            "ascii", "lorem ipsum dolor sit amet ",
+            "unicode", "Gr\u00fc\u00dfe \u6f22\u5b57 \u03b1\u03b2\u03b3 \ud83d\ude00 ",
+            "escaped", "\"quoted\" back\\slash\ttab\nline ");
+
+    private static class Point {
+        String op;
+        long bodyBytes, responseBytes, totalNanos;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LatencyHistogram write = new LatencyHistogram();
+        final LatencyHistogram ttfb = new LatencyHistogram();
+        final LatencyHistogram read = new LatencyHistogram();
+
+        double mbPerSecond() {
+            return (bodyBytes + responseBytes) * latency.count() / (totalNanos / 1e9) / 1e6;
+        }
+
+        String bottleneck() {
+            long w = write.percentile(50), t = ttfb.percentile(50), r = read.percentile(50);
+            return t >= w && t >= r ? "server" : w >= r ? "request_write" : "response_read";
+        }
+    }
+
+    private final PayloadFormat format = PayloadFormat.fromProperties();
+    private final Predicate<String> untilId = head -> format.findId(head) >= 0;
+    private final PhasedClient client = new PhasedClient(Target.base());
+    private final Api api = new Api(Target.base(), Transport.DEFAULT, PayloadFormat.JSON);
+
+    /** Parses 100, 10k, 1m (powers of 1024 for k and m). */
+    static int size(String s) {
+        s = s.trim().toLowerCase();
+        if (s.endsWith("k")) return Integer.parseInt(s.substring(0, s.length() - 1)) * 1024;
+        if (s.endsWith("m")) return Integer.parseInt(s.substring(0, s.length() - 1)) * 1024 * 1024;
+        return Integer.parseInt(s);
+    }
+
+    // ---------- BODIES ----------
+
+    /** About {@code bytes} of todo in this format, repeating {@code unit} over 1 or 2 text fields. */
+    private RequestBody body(int bytes, String unit, int fields) {
+        RequestBody.Template description = new RequestBody.Template(
+                "{\"title\":\"payload\",\"doneStatus\":false,\"description\":\"", "\"}")
+                .withXml("<todo><title>payload</title><doneStatus>false</doneStatus><description>",
+                        "</description></todo>");
+        int overhead = description.with("").as(format).length();
+        int unitBytes = description.with(unit).as(format).length() - overhead;
+        String text = unit.repeat(Math.max(1, (bytes - overhead) / unitBytes));
+        if (fields == 1) return description.with(text).as(format).frozen();
+
+        // half in the title; the other half is encoded once into the template
+        String half = text.substring(0, text.length() / 2);
+        if (Character.isHighSurrogate(half.charAt(half.length() - 1))) half = half.substring(0, half.length() - 1);
+        String rest = new RequestBody.Template("", "").withXml("", "").with(text.substring(half.length()))
+                .as(format).toString();
+        RequestBody.Template both = new RequestBody.Template(
+                "{\"title\":\"", "\",\"doneStatus\":false,\"description\":\"" + rest + "\"}")
+                .withXml("<todo><title>", "</title><doneStatus>false</doneStatus><description>"
+                        + rest + "</description></todo>");
+        return both.with(half).as(format).frozen();
+    }
+
+    // ---------- RUN ----------
+
+    private void sample(Point p, String method, String path, RequestBody body, int[] id, boolean record)
+            throws Exception {
+        PhasedClient.Timed t = client.timed(method, path, body, format.mediaType(), untilId);
+        if (method.equals("POST")) id[0] = format.extractId(t.response.body);
+        if (!record) return;
+
+        p.latency.record(t.nanos);
+        p.write.record(t.writeNanos);
+        p.ttfb.record(t.ttfbNanos);
+        p.read.record(t.bodyNanos);
+        p.totalNanos += t.nanos;
+        p.bodyBytes = body.length();
+        p.responseBytes = t.response.bytes;
+    }
+
+    @Test
+    public void todoPayloadSizes() throws Exception {
+
+        int[] sizes = Arrays.stream(SIZES.split(",")).mapToInt(PayloadSizeTests::size).toArray();
+        // content,fields,op -> one point per size
+        Map<String, List<Point>> series = new LinkedHashMap<>();
+
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path("todo_payload_metrics.csv")))) {
+
+            pw.println("format,content,fields,op,size,body_bytes,response_bytes,p50_ms,p99_ms,ops_s,mb_s,"
+                    + "write_p50_ms,server_p50_ms,read_p50_ms,bottleneck");
+
+            for (String content : CONTENT) {
+                String unit = UNITS.get(content.trim());
+                if (unit == null) throw new IllegalArgumentException("perf.payload.content: " + content);
+
+                for (String f : FIELDS) {
+                    int fields = Integer.parseInt(f.trim());
+                    for (int s = 0; s < sizes.length; s++) {
+                        RequestBody body = body(sizes[s], unit, fields);
+                        Point post = new Point(), put = new Point();
+                        post.op = "post";
+                        put.op = "put";
+
+                        for (int i = -Math.max(1, SAMPLES / 10); i < SAMPLES; i++) {
+                            int[] id = new int[1];
+                            sample(post, "POST", "/todos", body, id, i >= 0);
+                            sample(put, "PUT", "/todos/" + id[0], body, id, i >= 0);
+                            api.delete("todos", id[0]);
+                        }
+
+                        for (Point p : List.of(post, put)) {
+                            pw.printf("%s,%s,%d,%s,%d,%d,%d,%.4f,%.4f,%.2f,%.2f,%.4f,%.4f,%.4f,%s%n",
+                                    format, content.trim(), fields, p.op, sizes[s], p.bodyBytes, p.responseBytes,
+                                    p.latency.percentile(50) / 1e6, p.latency.percentile(99) / 1e6,
+                                    p.latency.count() / (p.totalNanos / 1e9), p.mbPerSecond(),
+                                    p.write.percentile(50) / 1e6, p.ttfb.percentile(50) / 1e6,
+                                    p.read.percentile(50) / 1e6, p.bottleneck());
+                            series.computeIfAbsent(content.trim() + "," + fields + "," + p.op,
+                                    k -> new ArrayList<>()).add(p);
+                        }
+                        pw.flush();
+                        System.out.printf("%s/%d fields %d bytes: post %.2fms put %.2fms (%s)%n",
+                                content.trim(), fields, post.bodyBytes, post.latency.percentile(50) / 1e6,
+                                put.latency.percentile(50) / 1e6, post.bottleneck());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        writeKnee("todo_payload_knee.csv", series);
+    }
+
+    private void writeKnee(String filename, Map<String, List<Point>> series) {
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path(filename)))) {
+            pw.println("format,content,fields,op,peak_body_bytes,peak_mb_s,largest_body_bytes,largest_mb_s,largest_bottleneck");
+            for (Map.Entry<String, List<Point>> e : series.entrySet()) {
+                List<Point> points = e.getValue();
+                Point peak = Collections.max(points, Comparator.comparingDouble(Point::mbPerSecond));
+                Point largest = points.get(points.size() - 1);
+                pw.printf("%s,%s,%d,%.2f,%d,%.2f,%s%n",
+                        format, e.getKey(), peak.bodyBytes, peak.mbPerSecond(),
+                        largest.bodyBytes, largest.mbPerSecond(), largest.bottleneck());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
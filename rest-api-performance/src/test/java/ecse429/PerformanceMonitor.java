@@ -1,6 +1,7 @@
 package ecse429;
 
 import java.io.*;
+import java.nio.file.*;
 import java.util.*;
 
 public class PerformanceMonitor {
@@ -10,108 +11,229 @@ public class PerformanceMonitor {
         long timestamp;
 
         double addMs, updateMs, deleteMs;
-        double addCPU, updateCPU, deleteCPU;
-        double addMem, updateMem, deleteMem;
-    }
 
-    private final List<Row> rows = new ArrayList<>();
+        // System.nanoTime() at which each operation was recorded
+        long addAt, updateAt, deleteAt;
 
-    // ---------- OS METRICS ----------
-    private double readCPU() {
-        try {
-            Process p = Runtime.getRuntime().exec("ps -A -o %cpu");
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
-                br.readLine();
-                double total = 0;
-                String line;
-                while ((line = br.readLine()) != null) {
-                    line = line.trim();
-                    if (!line.isEmpty()) total += Double.parseDouble(line);
-                }
-                return total;
-            }
-        } catch (Exception e) {
-            return -1.0;
-        }
+        // RequestPhases of add, update and delete, in that order
+        final double[] phases = new double[3 * RequestPhases.VALUES];
     }
 
-    private double readFreeMemory() {
-        try {
-            Process p = Runtime.getRuntime().exec("vm_stat");
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
-                long freePages = 0;
-                long pageSize = 4096;
-
-                String line;
-                while ((line = br.readLine()) != null) {
-                    if (line.startsWith("Pages free")) {
-                        freePages = Long.parseLong(line.replaceAll("[^0-9]", ""));
-                    }
-                    if (line.contains("page size of")) {
-                        pageSize = Long.parseLong(line.replaceAll("[^0-9]", ""));
-                    }
-                }
+    // op -> scale -> latency distribution in nanoseconds
+    private final Map<String, Map<Integer, LatencyHistogram>> histograms = new TreeMap<>();
+
+    // OS metrics come from a background sampler and are joined by timestamp
+    // as each row is flushed, so recording never forks or blocks.
+    private final ProcSampler sampler = ProcSampler.shared();
+
+    // server GC pauses overlapping each op (-Dperf.gc=true); GC notifications
+    // can trail the pause, so rows wait until the probe has caught up to them
+    private static final int MAX_HELD_ROWS = 4096;
+    private final GcProbe gc = GcProbe.shared();
+    private final long createdAt = System.nanoTime();
+    private final Deque<Row> held = new ArrayDeque<>();
+
+    // per-iteration rows stream to <csv>.rows instead of piling up on the
+    // heap; only monitors created with a CSV name keep rows at all
+    private final String filename;
+    private final Path spool;
+    private ResultSink sink;
+
+    /** Keeps latency histograms only, e.g. for per-user monitors that get merged. */
+    public PerformanceMonitor() {
+        this.filename = null;
+        this.spool = null;
+    }
 
-                return (freePages * pageSize) / (1024.0 * 1024.0);
-            }
-        } catch (Exception e) {
-            return -1.0;
+    /** Also streams every add/update/delete row towards {@code filename}, written by writeCSV(). */
+    public PerformanceMonitor(String filename) {
+        this.filename = filename;
+        this.spool = Paths.get(Output.path(filename.replace(".csv", "") + ".rows"));
+        try {
+            this.sink = new ResultSink(spool);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
     }
 
     // ---------- RECORDING ----------
-    private Row current;
+    private Row current = new Row();
+    private boolean pending;
+
+    public void recordAdd(int scale, long addNanos) {
+        if (pending) held.addLast(current);
+        flushRows(false);
+        pending = sink != null;
 
-    public void recordAdd(int scale, long addMs) {
         current = new Row();
         current.scale = scale;
         current.timestamp = System.currentTimeMillis();
 
-        current.addMs = addMs;
-        current.addCPU = readCPU();
-        current.addMem = readFreeMemory();
+        current.addMs = addNanos / 1e6;
+        current.addAt = System.nanoTime();
+        current.updateAt = current.deleteAt = current.addAt;
+        RequestPhases.last().into(current.phases, 0);
+        Arrays.fill(current.phases, RequestPhases.VALUES, current.phases.length, -1);
+        record("add", scale, addNanos);
+    }
+
+    public void recordUpdate(long updateNanos) {
+        current.updateMs = updateNanos / 1e6;
+        current.updateAt = System.nanoTime();
+        RequestPhases.last().into(current.phases, RequestPhases.VALUES);
+        record("update", current.scale, updateNanos);
+    }
+
+    public void recordDelete(long deleteNanos) {
+        current.deleteMs = deleteNanos / 1e6;
+        current.deleteAt = System.nanoTime();
+        RequestPhases.last().into(current.phases, 2 * RequestPhases.VALUES);
+        record("delete", current.scale, deleteNanos);
+    }
+
+    /** add + update + delete of the row in progress, in ms. */
+    double lastRowMs() {
+        return current.addMs + current.updateMs + current.deleteMs;
+    }
+
+    /** add, update and delete ms of the row in progress, into {@code out}. */
+    void lastRow(double[] out) {
+        out[0] = current.addMs;
+        out[1] = current.updateMs;
+        out[2] = current.deleteMs;
+    }
+
+    /** Adds one latency sample to the histogram for {@code op} at {@code scale}. */
+    public void record(String op, int scale, long nanos) {
+        histogram(op, scale).record(nanos);
+    }
+
+    public LatencyHistogram histogram(String op, int scale) {
+        return histograms
+                .computeIfAbsent(op, k -> new TreeMap<>())
+                .computeIfAbsent(scale, k -> new LatencyHistogram());
+    }
+
+    public Set<String> ops() {
+        return histograms.keySet();
+    }
+
+    /** Folds another monitor's histograms (another thread or run) into this one. */
+    public void merge(PerformanceMonitor other) {
+        other.histograms.forEach((op, byScale) ->
+                byScale.forEach((scale, h) -> histogram(op, scale).merge(h)));
+    }
+
+    // ---------- OS METRICS ----------
+    private final double[] sample = new double[ProcSampler.FIELDS];
+    private final double[] values = new double[ResultSink.VALUES];
+
+    // the sampler ring only covers the last few minutes, so each row is
+    // joined and written as soon as the next one starts (and the GC probe,
+    // if any, has seen past it)
+    private void flushRows(boolean all) {
+        long watermark = gc == null ? Long.MAX_VALUE : gc.watermark();
+        while (!held.isEmpty()) {
+            Row r = held.peekFirst();
+            if (!all && r.deleteAt > watermark && held.size() <= MAX_HELD_ROWS) break;
+            flushRow(held.removeFirst());
+        }
+    }
+
+    private void flushRow(Row r) {
+        values[0] = r.addMs;
+        values[1] = r.updateMs;
+        values[2] = r.deleteMs;
+
+        join(0, r.addAt);
+        join(1, r.updateAt);
+        join(2, r.deleteAt);
+
+        values[9] = gcOverlap(r.addAt, r.addMs);
+        values[10] = gcOverlap(r.updateAt, r.updateMs);
+        values[11] = gcOverlap(r.deleteAt, r.deleteMs);
+
+        System.arraycopy(r.phases, 0, values, 12, r.phases.length);
 
-        rows.add(current);
+        try {
+            sink.append(r.scale, r.timestamp, values);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
-    public void recordUpdate(long updateMs) {
-        current.updateMs = updateMs;
-        current.updateCPU = readCPU();
-        current.updateMem = readFreeMemory();
+    private void join(int op, long nanoTime) {
+        Arrays.fill(sample, 0);
+        sampler.nearest(nanoTime, sample);
+        values[3 + op] = sample[ProcSampler.CPU];
+        values[6 + op] = sample[ProcSampler.MEM];
     }
 
-    public void recordDelete(long deleteMs) {
-        current.deleteMs = deleteMs;
-        current.deleteCPU = readCPU();
-        current.deleteMem = readFreeMemory();
+    /** GC pause ms within the op that ended at {@code endNano} after {@code ms}, or -1 without a probe. */
+    private double gcOverlap(long endNano, double ms) {
+        if (gc == null) return -1;
+        if (ms == 0) return 0;
+        return gc.pauseOverlapMs(endNano - (long) (ms * 1e6), endNano);
     }
 
     // ---------- CSV OUTPUT ----------
-    public void writeCSV(String filename) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(filename))) {
 
-            pw.println(
-                "scale,timestamp," +
-                "add_ms,update_ms,delete_ms," +
-                "add_cpu,update_cpu,delete_cpu," +
-                "add_mem,update_mem,delete_mem"
-            );
+    /**
+     * Ends the row stream and converts it to the CSV named at construction,
+     * plus its _latency.csv (and _gc_pauses.csv / _gc_heap.csv with a GC
+     * probe). The .rows spool is removed once converted.
+     */
+    public void writeCSV() {
+        if (sink == null) {
+            throw new IllegalStateException("No rows to write: monitor has no CSV name or was already written");
+        }
 
-            for (Row r : rows) {
-                pw.printf(
-                    "%d,%d,%.4f,%.4f,%.4f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f%n",
-                    r.scale, r.timestamp,
+        try {
+            if (pending) held.addLast(current);
+            pending = false;
+            if (gc != null) gc.awaitWatermark(current.deleteAt, 2000);
+            flushRows(true);
+            sink.close();
+            ResultSink.toCSV(spool, Output.path(filename));
+            Files.delete(spool);
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException(e);
+        } finally {
+            sink = null;
+        }
+
+        writeLatencyCSV(filename.replace(".csv", "_latency.csv"));
+        if (gc != null) gc.writeCSV(filename, createdAt);
+    }
 
-                    r.addMs, r.updateMs, r.deleteMs,
+    /** One row per op and scale, plus an "all" row per op merged across scales. */
+    public void writeLatencyCSV(String filename) {
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path(filename)))) {
 
-                    r.addCPU, r.updateCPU, r.deleteCPU,
+            pw.println("op,scale,count,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,histogram");
 
-                    r.addMem, r.updateMem, r.deleteMem
-                );
+            for (Map.Entry<String, Map<Integer, LatencyHistogram>> e : histograms.entrySet()) {
+                LatencyHistogram all = new LatencyHistogram();
+                for (Map.Entry<Integer, LatencyHistogram> s : e.getValue().entrySet()) {
+                    printLatency(pw, e.getKey(), String.valueOf(s.getKey()), s.getValue());
+                    all.merge(s.getValue());
+                }
+                printLatency(pw, e.getKey(), "all", all);
             }
 
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
+
+    private static void printLatency(PrintWriter pw, String op, String scale, LatencyHistogram h) {
+        pw.printf(
+            "%s,%s,%d,%.4f,%.4f,%.4f,%.4f,%.4f,%s%n",
+            op, scale, h.count(),
+            h.percentile(50) / 1e6, h.percentile(90) / 1e6,
+            h.percentile(99) / 1e6, h.percentile(99.9) / 1e6,
+            h.max() / 1e6,
+            h.encode()
+        );
+    }
 }
@@ -0,0 +1,385 @@
+package ecse429;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+
+/**
+ * Small blocking HTTP/1.1 client over SocketChannels that times every phase
+ * of a request (the pooled and fresh Transports route Api's synchronous
+ * calls here).
+ *
+ * Each exchange reports to RequestPhases: connection acquisition (a new TCP
+ * connect, or taking an idle keep-alive connection), writing the request,
+ * waiting for the first response byte, and reading the rest of the
+ * response. Connections are pooled per client and used by one thread at a
+ * time; a request that fails on a pooled connection the server already
+ * closed is retried once on a fresh one if it is idempotent (GET, HEAD, PUT,
+ * DELETE) or never reached the server. A POST could have been applied before
+ * the close, so its error is thrown instead; to make that rare, an idle
+ * connection is checked for a close before a POST is sent on it. With keep-alive off every request asks for Connection: close
+ * and gets a new connection. At most maxConnections are open at once;
+ * further callers wait for one.
+ */
+public class PhasedClient {
+
+    public static final class Response {
+        public final int status;
+        public final String body;
+        public final int bytes;     // on the wire: status line, headers, framing and body
+
+        Response(int status, String body, int bytes) {
+            this.status = status;
+            this.body = body;
+            this.bytes = bytes;
+        }
+    }
+
+    /** A 2xx response with how long its exchange took, end to end and by phase. */
+    public static final class Timed {
+        public final Response response;
+        public final long nanos, writeNanos, ttfbNanos, bodyNanos;
+
+        Timed(Response response, long nanos, RequestPhases phases) {
+            this.response = response;
+            this.nanos = nanos;
+            this.writeNanos = phases.writeNanos();
+            this.ttfbNanos = phases.ttfbNanos();
+            this.bodyNanos = phases.bodyNanos();
+        }
+    }
+
+    /** A pooled connection failed before any of the response arrived. */
+    private static final class StaleConnection extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        final boolean written;      // the whole request went out before the failure
+
+        StaleConnection(IOException cause, boolean written) {
+            super(cause);
+            this.written = written;
+        }
+    }
+
+    private static final class Connection {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(16 * 1024).flip();
+        int taken;      // bytes of the current response consumed from in
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final InetSocketAddress address;
+    private final String hostHeader;
+    private final Deque<Connection> idle = new ConcurrentLinkedDeque<>();
+    private final boolean keepAlive;
+    private final Semaphore connections;     // null when unbounded
+
+    // each thread encodes its requests into one reused buffer
+    private static final ThreadLocal<ByteBuffer> OUT = ThreadLocal.withInitial(() -> ByteBuffer.allocate(8 * 1024));
+
+    public PhasedClient(String base) {
+        this(base, true, Integer.MAX_VALUE);
+    }
+
+    public PhasedClient(String base, boolean keepAlive, int maxConnections) {
+        this.keepAlive = keepAlive;
+        this.connections = maxConnections == Integer.MAX_VALUE ? null : new Semaphore(maxConnections);
+        URI uri = URI.create(base);
+        int port = uri.getPort() == -1 ? 80 : uri.getPort();
+        this.address = new InetSocketAddress(uri.getHost(), port);
+        this.hostHeader = uri.getHost() + ":" + port;
+    }
+
+    /** Sends {@code method path} with an optional body and reads the whole response. */
+    public Response exchange(String method, String path, RequestBody body) throws IOException {
+        return exchange(method, path, body, null);
+    }
+
+    /** The same with an Accept header, unless {@code accept} is null. */
+    public Response exchange(String method, String path, RequestBody body, String accept) throws IOException {
+        return exchange(method, path, body, accept, null);
+    }
+
+    /**
+     * The same, storing the response body only until {@code enough} accepts
+     * the part kept so far (asked at 256 bytes, then each time that doubles);
+     * the rest is read and counted but not stored. A null {@code enough}
+     * keeps it all.
+     */
+    public Response exchange(String method, String path, RequestBody body, String accept,
+                             Predicate<String> enough) throws IOException {
+        ByteBuffer request = encode(method, path, body, accept);
+
+        if (connections != null) {
+            try {
+                connections.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a connection");
+            }
+        }
+        try {
+            boolean idempotent = method.equals("GET") || method.equals("HEAD")
+                    || method.equals("PUT") || method.equals("DELETE");
+            Connection pooled = idle.pollFirst();
+            while (pooled != null && !idempotent && closedWhileIdle(pooled)) {
+                close(pooled);
+                pooled = idle.pollFirst();
+            }
+            if (pooled != null) {
+                try {
+                    return exchange(pooled, false, method, request, enough);
+                } catch (StaleConnection e) {
+                    // closed by the server while idle; a written POST may have been applied
+                    if (e.written && !idempotent) throw (IOException) e.getCause();
+                }
+            }
+            return exchange(null, true, method, request, enough);
+        } finally {
+            if (connections != null) connections.release();
+        }
+    }
+
+    /**
+     * exchange() as a measured block of its own, for the suites that time
+     * PhasedClient directly. A non-2xx status throws Api.StatusException.
+     */
+    public Timed timed(String method, String path, RequestBody body, String accept,
+                       Predicate<String> enough) throws IOException {
+        RequestPhases.begin();
+        long t0 = System.nanoTime();
+        Response r;
+        try {
+            r = exchange(method, path, body, accept, enough);
+        } finally {
+            RequestPhases.end();
+        }
+        long nanos = System.nanoTime() - t0;
+        if (r.status / 100 != 2) throw new Api.StatusException(method, path, r.status, r.body);
+        return new Timed(r, nanos, RequestPhases.last());
+    }
+
+    private Response exchange(Connection c, boolean fresh, String method, ByteBuffer request,
+                              Predicate<String> enough) throws IOException {
+        long t0 = System.nanoTime();
+        if (c == null) c = open();
+        long t1 = System.nanoTime();
+
+        try {
+            long t2, t3;
+            boolean written = false;
+            try {
+                request.rewind();
+                while (request.hasRemaining()) c.channel.write(request);
+                written = true;
+                t2 = System.nanoTime();
+
+                if (!fill(c)) throw new EOFException("Connection closed before the response");
+                t3 = System.nanoTime();
+            } catch (IOException e) {
+                throw fresh ? e : new StaleConnection(e, written);
+            }
+
+            Response response = read(c, method, enough);
+            long t4 = System.nanoTime();
+
+            RequestPhases.add(fresh, t1 - t0, t2 - t1, t3 - t2, t4 - t3);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            close(c);
+            throw e;
+        }
+    }
+
+    /** True if the server closed (or wrote to) {@code c} while it sat idle; a non-blocking peek. */
+    private static boolean closedWhileIdle(Connection c) {
+        try {
+            c.channel.configureBlocking(false);
+            try {
+                c.in.compact();
+                return c.channel.read(c.in) != 0;
+            } finally {
+                c.in.flip();
+                c.channel.configureBlocking(true);
+            }
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private Connection open() throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.connect(address);
+        return new Connection(channel);
+    }
+
+    private static void close(Connection c) {
+        try {
+            c.channel.close();
+        } catch (IOException e) {
+            // already gone
+        }
+    }
+
+    private ByteBuffer encode(String method, String path, RequestBody body, String accept) {
+        int length = body == null ? 0 : body.length();
+        int size = method.length() + path.length() + hostHeader.length() + length + 192;
+
+        ByteBuffer out = OUT.get();
+        if (out.capacity() < size) OUT.set(out = ByteBuffer.allocate(Math.max(size, 2 * out.capacity())));
+        out.clear();
+
+        ascii(out, method).put((byte) ' ');
+        ascii(out, path);
+        ascii(out, " HTTP/1.1\r\nHost: ");
+        ascii(out, hostHeader);
+        if (!keepAlive) ascii(out, "\r\nConnection: close");
+        if (accept != null) {
+            ascii(out, "\r\nAccept: ");
+            ascii(out, accept);
+        }
+        if (body != null) {
+            ascii(out, "\r\nContent-Type: ");
+            ascii(out, body.mediaType());
+            ascii(out, "\r\nContent-Length: ");
+            ascii(out, Integer.toString(length));
+        }
+        ascii(out, "\r\n\r\n");
+        if (body != null) body.writeTo(out);
+        return out.flip();
+    }
+
+    private static ByteBuffer ascii(ByteBuffer out, String s) {
+        for (int i = 0; i < s.length(); i++) out.put((byte) s.charAt(i));
+        return out;
+    }
+
+    // ---------- RESPONSE PARSING ----------
+
+    private Response read(Connection c, String method, Predicate<String> enough) throws IOException {
+        c.taken = 0;
+        String statusLine = readLine(c);
+        String[] parts = statusLine.split(" ", 3);
+        if (parts.length < 2 || !parts[0].startsWith("HTTP/1.")) throw new IOException("Bad status line: " + statusLine);
+        int status = Integer.parseInt(parts[1]);
+
+        long length = -1;
+        boolean chunked = false;
+        boolean keepAlive = this.keepAlive && parts[0].equals("HTTP/1.1");
+        for (String line; !(line = readLine(c)).isEmpty(); ) {
+            int colon = line.indexOf(':');
+            if (colon < 0) continue;
+            String name = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+            if (name.equalsIgnoreCase("Content-Length")) length = Long.parseLong(value);
+            else if (name.equalsIgnoreCase("Transfer-Encoding")) chunked = value.equalsIgnoreCase("chunked");
+            else if (name.equalsIgnoreCase("Connection")) keepAlive = !value.equalsIgnoreCase("close");
+        }
+
+        Body body = new Body(enough);
+        if (method.equals("HEAD") || status == 204 || status == 304 || status / 100 == 1) {
+            // no body whatever the headers say
+        } else if (chunked) {
+            for (long size; (size = Long.parseLong(readLine(c).split(";")[0].trim(), 16)) > 0; ) {
+                readBytes(c, size, body);
+                readLine(c);
+            }
+            while (!readLine(c).isEmpty()) { }     // trailers
+        } else if (length >= 0) {
+            readBytes(c, length, body);
+        } else {
+            do {                                    // delimited by close
+                body.write(c.in.array(), c.in.position(), c.in.remaining());
+                c.taken += c.in.remaining();
+                c.in.position(c.in.limit());
+            } while (fill(c));
+            keepAlive = false;
+        }
+
+        if (keepAlive) idle.addFirst(c);
+        else close(c);
+        return new Response(status, body.toString(), c.taken);
+    }
+
+    /** A response body, kept until {@code enough} accepts it (null: all of it); the rest is dropped. */
+    private static final class Body extends ByteArrayOutputStream {
+        private final Predicate<String> enough;
+        private int ask = 256;      // kept bytes at which to ask enough next
+        private boolean done;
+
+        Body(Predicate<String> enough) {
+            this.enough = enough;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (enough == null) {
+                super.write(b, off, len);
+                return;
+            }
+            while (len > 0 && !done) {
+                int n = Math.min(len, ask - count);
+                super.write(b, off, n);
+                off += n;
+                len -= n;
+                if (count == ask) {
+                    done = enough.test(toString());
+                    ask *= 2;       // doubling keeps the re-decoding linear in what is kept
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Reads more into the connection's buffer; false at end of stream. */
+    private static boolean fill(Connection c) throws IOException {
+        c.in.compact();
+        try {
+            return c.channel.read(c.in) > 0;
+        } finally {
+            c.in.flip();
+        }
+    }
+
+    private static String readLine(Connection c) throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            while (c.in.hasRemaining()) {
+                char ch = (char) (c.in.get() & 0xff);
+                c.taken++;
+                if (ch == '\n') {
+                    int end = line.length();
+                    if (end > 0 && line.charAt(end - 1) == '\r') line.setLength(end - 1);
+                    return line.toString();
+                }
+                line.append(ch);
+            }
+            if (!fill(c)) throw new EOFException("Connection closed mid-response");
+        }
+    }
+
+    private static void readBytes(Connection c, long count, Body into) throws IOException {
+        while (count > 0) {
+            if (!c.in.hasRemaining() && !fill(c)) throw new EOFException("Connection closed mid-body");
+            int n = (int) Math.min(count, c.in.remaining());
+            into.write(c.in.array(), c.in.position(), n);
+            c.in.position(c.in.position() + n);
+            c.taken += n;
+            count -= n;
+        }
+    }
+}
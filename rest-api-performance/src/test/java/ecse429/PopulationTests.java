@@ -0,0 +1,119 @@
+package ecse429;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Data-size scaling: grows the number of stored todos/projects/categories
+ * (e.g. -Dperf.populations=1000,10000,100000,1000000) with parallel seeding,
+ * then measures create/update/delete and the full list at each population.
+ * The "scale" column of the resulting CSVs is the population.
+ */
+@EnabledIfSystemProperty(named = "perf.populations", matches = ".+")
+public class PopulationTests {
+
+    private static final Api api = new Api();
+    private static final int SAMPLES = Integer.getInteger("perf.samples", 100);
+    private static final int LIST_SAMPLES = Integer.getInteger("perf.list.samples", 10);
+    private static final boolean CLEANUP = !"false".equals(System.getProperty("perf.cleanup"));
+
+    private static int[] populations() {
+        return Arrays.stream(System.getProperty("perf.populations").split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim())).sorted().toArray();
+    }
+
+    private void run(String collection, String prefix, String csv) throws Exception {
+
+        PerformanceMonitor monitor = new PerformanceMonitor(csv + "_population_metrics.csv");
+        int[] levels = populations();
+        int[] seeded = new int[levels[levels.length - 1]];
+        long[] listBytes = new long[levels.length];
+        int count = 0;
+
+        try {
+            for (int l = 0; l < levels.length; l++) {
+                int population = levels[l];
+
+                // ---------- SEED ----------
+                int from = count;
+                long seedNs = Api.measure(() -> Api.parallel(population - from, i ->
+                        api.createAsync(collection, Api.body(collection, prefix + "-seed-" + (from + i)))
+                                .thenAccept(id -> seeded[from + i] = id)));
+                count = population;
+                System.out.printf("%s: seeded %d in %.1fs%n", collection, population, seedNs / 1e9);
+
+                // ---------- CRUD ----------
+                for (int i = 0; i < SAMPLES; i++) {
+                    int[] id = new int[1];
+                    String title = prefix + "-" + population + "-" + i;
+
+                    long addNs = Api.measure(() -> id[0] = api.create(collection, Api.body(collection, title)));
+                    monitor.recordAdd(population, addNs);
+
+                    long updateNs = Api.measure(() ->
+                            api.update(collection, id[0], Api.body(collection, "updated-" + title)));
+                    monitor.recordUpdate(updateNs);
+
+                    long deleteNs = Api.measure(() -> api.delete(collection, id[0]));
+                    monitor.recordDelete(deleteNs);
+                }
+
+                // ---------- LIST ----------
+                for (int i = 0; i < LIST_SAMPLES; i++) {
+                    String[] body = new String[1];
+                    long listNs = Api.measure(() -> body[0] = api.get("/" + collection));
+                    monitor.record("list", population, listNs);
+                    listBytes[l] = body[0].getBytes(StandardCharsets.UTF_8).length;
+                }
+            }
+
+            monitor.writeCSV();
+            writeListCSV(csv + "_population_list.csv", monitor, levels, listBytes);
+        } finally {
+            // also after a failed sample; a seed cut short leaves 0 (never an id) in its slots
+            if (CLEANUP) {
+                int[] ids = Arrays.stream(seeded).filter(id -> id != 0).toArray();
+                Api.parallel(ids.length, i -> api.deleteAsync(collection, ids[i]));
+            }
+        }
+    }
+
+    private static void writeListCSV(String filename, PerformanceMonitor monitor,
+                                     int[] levels, long[] bytes) {
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path(filename)))) {
+
+            pw.println("population,list_bytes,list_p50_ms,list_p99_ms,list_ms_per_1k");
+
+            for (int l = 0; l < levels.length; l++) {
+                LatencyHistogram h = monitor.histogram("list", levels[l]);
+                pw.printf(
+                    "%d,%d,%.4f,%.4f,%.4f%n",
+                    levels[l], bytes[l],
+                    h.percentile(50) / 1e6, h.percentile(99) / 1e6,
+                    h.percentile(50) / 1e6 / (levels[l] / 1000.0)
+                );
+            }
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void todoPopulationPerformance() throws Exception {
+        run("todos", "todo", "todo");
+    }
+
+    @Test
+    public void projectPopulationPerformance() throws Exception {
+        run("projects", "proj", "project");
+    }
+
+    @Test
+    public void categoryPopulationPerformance() throws Exception {
+        run("categories", "cat", "category");
+    }
+}
@@ -0,0 +1,193 @@
+package ecse429;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background sampler for host CPU and free memory. The server process's
+ * own CPU is ServerUsage's job.
+ *
+ * A single daemon thread reads /proc/stat and /proc/meminfo at a fixed
+ * interval and publishes into a ring buffer. Readers never block
+ * and never fork: they look up the sample nearest to a System.nanoTime()
+ * timestamp. Hosts without /proc (macOS) fall back to ps/vm_stat, but those
+ * forks still happen on the sampler thread, never on the measured path.
+ */
+public class ProcSampler {
+
+    public static final int CPU = 0;        // host CPU utilisation, % of all cores
+    public static final int MEM = 1;        // available memory, MiB
+    public static final int FIELDS = 2;
+
+    private static final int CAPACITY = 8192;
+    private static final long INTERVAL_MS = Long.getLong("perf.sample.ms", 50);
+
+    private static ProcSampler shared;
+
+    /** JVM-wide sampler, started on first use. */
+    public static synchronized ProcSampler shared() {
+        if (shared == null) {
+            shared = new ProcSampler(INTERVAL_MS);
+            shared.start();
+        }
+        return shared;
+    }
+
+    private final long intervalMs;
+    private final boolean procfs = Files.isReadable(Paths.get("/proc/stat"));
+
+    // ring: slot = seq % CAPACITY, written only by the sampler thread
+    private final long[] times = new long[CAPACITY];
+    private final double[][] values = new double[FIELDS][CAPACITY];
+    private final AtomicLong published = new AtomicLong(-1);
+
+    // previous /proc counters for deltas
+    private long lastBusy = -1, lastTotal = -1;
+
+    public ProcSampler(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    public void start() {
+        Thread t = new Thread(this::loop, "proc-sampler");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // ---------- SAMPLER THREAD ----------
+    private void loop() {
+        double[] sample = new double[FIELDS];
+        while (!Thread.currentThread().isInterrupted()) {
+            long now = System.nanoTime();
+            if (procfs) readProc(sample); else readLegacy(sample);
+
+            long seq = published.get() + 1;
+            int slot = (int) (seq % CAPACITY);
+            times[slot] = now;
+            for (int f = 0; f < FIELDS; f++) values[f][slot] = sample[f];
+            published.set(seq);
+
+            try {
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void readProc(double[] out) {
+        out[CPU] = out[MEM] = -1.0;
+        try {
+            // cpu  user nice system idle iowait irq softirq steal ...
+            String[] cpu = firstLine("/proc/stat").trim().split("\\s+");
+            long total = 0;
+            for (int i = 1; i < cpu.length && i <= 8; i++) total += Long.parseLong(cpu[i]);
+            long busy = total - Long.parseLong(cpu[4]) - Long.parseLong(cpu[5]);
+
+            if (lastTotal >= 0 && total > lastTotal) {
+                out[CPU] = 100.0 * (busy - lastBusy) / (total - lastTotal);
+            }
+            lastBusy = busy;
+            lastTotal = total;
+
+            for (String line : Files.readAllLines(Paths.get("/proc/meminfo"))) {
+                if (line.startsWith("MemAvailable:")) {
+                    out[MEM] = Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024.0;
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            // keep -1 for this sample
+        }
+    }
+
+    private static String firstLine(String path) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(Paths.get(path))) {
+            return br.readLine();
+        }
+    }
+
+    private void readLegacy(double[] out) {
+        out[CPU] = readPsCPU();
+        out[MEM] = readVmStatFree();
+    }
+
+    private double readPsCPU() {
+        try {
+            Process p = Runtime.getRuntime().exec("ps -A -o %cpu");
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+                br.readLine();
+                double total = 0;
+                String line;
+                while ((line = br.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty()) total += Double.parseDouble(line);
+                }
+                return total;
+            }
+        } catch (Exception e) {
+            return -1.0;
+        }
+    }
+
+    private double readVmStatFree() {
+        try {
+            Process p = Runtime.getRuntime().exec("vm_stat");
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+                long freePages = 0;
+                long pageSize = 4096;
+
+                String line;
+                while ((line = br.readLine()) != null) {
+                    if (line.startsWith("Pages free")) {
+                        freePages = Long.parseLong(line.replaceAll("[^0-9]", ""));
+                    }
+                    if (line.contains("page size of")) {
+                        pageSize = Long.parseLong(line.replaceAll("[^0-9]", ""));
+                    }
+                }
+
+                return (freePages * pageSize) / (1024.0 * 1024.0);
+            }
+        } catch (Exception e) {
+            return -1.0;
+        }
+    }
+
+    // ---------- LOOKUP ----------
+
+    /**
+     * Copies the sample nearest to {@code nanoTime} into {@code out}.
+     * Returns false (and fills -1) if no sample is available any more.
+     */
+    public boolean nearest(long nanoTime, double[] out) {
+        long hi = published.get();
+        long lo = Math.max(0, hi - CAPACITY + 2);
+        Arrays.fill(out, -1.0);
+        if (hi < 0) return false;
+
+        // times are monotonic in seq order: binary search for the first >= nanoTime
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (times[(int) (mid % CAPACITY)] < nanoTime) lo = mid + 1; else hi = mid;
+        }
+        long seq = lo;
+        if (seq > 0 && seq > published.get() - CAPACITY + 2) {
+            long before = times[(int) ((seq - 1) % CAPACITY)];
+            long after = times[(int) (seq % CAPACITY)];
+            if (Math.abs(nanoTime - before) < Math.abs(after - nanoTime)) seq--;
+        }
+
+        int slot = (int) (seq % CAPACITY);
+        for (int f = 0; f < FIELDS; f++) out[f] = values[f][slot];
+
+        // the writer may have lapped us while copying
+        if (published.get() - seq >= CAPACITY - 1) {
+            Arrays.fill(out, -1.0);
+            return false;
+        }
+        return true;
+    }
+}
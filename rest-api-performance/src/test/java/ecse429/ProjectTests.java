@@ -1,111 +1,57 @@
 package ecse429;
 
-import com.google.gson.*;
 import org.junit.jupiter.api.Test;
-import java.net.URI;
-import java.net.http.*;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 
 public class ProjectTests {
 
-    private static final String BASE = "http://localhost:4567";
-    private static final HttpClient client = HttpClient.newHttpClient();
-    private static final int[] SCALES = {1, 5, 10, 50, 75, 100};
+    private static final Api api = new Api();
 
-    @FunctionalInterface 
-    interface CheckedRunnable { 
-        void run() throws Exception; 
-    }
-
-    private long measure(CheckedRunnable r) throws Exception {
-        long start = System.nanoTime();
-        r.run();
-        return (System.nanoTime() - start) / 1_000_000; // ms
-    }
-
-    private String send(HttpRequest req) throws Exception {
-        return client.send(req, HttpResponse.BodyHandlers.ofString()).body();
-    }
-
-    private int extractId(String json) {
-        return JsonParser.parseString(json)
-                .getAsJsonObject()
-                .get("id").getAsInt();
-    }
-
-    // -----------------------------------------------------------
-    // PROJECT OPERATIONS
-    // -----------------------------------------------------------
-
-    /** POST /projects */
-    private int createProject(String title) throws Exception {
-        JsonObject obj = new JsonObject();
-        obj.addProperty("title", title);
-        obj.addProperty("completed", false);
-        obj.addProperty("active", true);
-
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/projects"))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(obj.toString()))
-                .build();
-
-        return extractId(send(req));
-    }
-
-    /** PUT /projects/:id */
-    private void updateProject(int id) throws Exception {
-        JsonObject obj = new JsonObject();
-        obj.addProperty("title", "updated-project-" + id);
-        obj.addProperty("completed", true);
-        obj.addProperty("active", false);
+    /** POST /projects, PUT /projects/:id, DELETE /projects/:id */
+    @Test
+    public void projectPerformance() throws Exception {
 
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/projects/" + id))
-                .header("Content-Type", "application/json")
-                .PUT(HttpRequest.BodyPublishers.ofString(obj.toString()))
-                .build();
+        ScaleLoop.run("project_metrics.csv", (scale, i, monitor) -> {
 
-        send(req);
-    }
+            // ---------- ADD ----------
+            int[] id = new int[1];
+            long addNs = Api.measure(() -> id[0] = api.create("projects", Api.project("proj-" + scale + "-" + i)));
+            monitor.recordAdd(scale, addNs);
 
-    /** DELETE /projects/:id */
-    private void deleteProject(int id) throws Exception {
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/projects/" + id))
-                .DELETE()
-                .build();
+            // ---------- UPDATE ----------
+            long updateNs = Api.measure(() -> api.update("projects", id[0], Api.updated("projects", id[0])));
+            monitor.recordUpdate(updateNs);
 
-        send(req);
+            // ---------- DELETE ----------
+            long deleteNs = Api.measure(() -> api.delete("projects", id[0]));
+            monitor.recordDelete(deleteNs);
+        });
     }
 
-    // -----------------------------------------------------------
-    // PERFORMANCE TEST
-    // -----------------------------------------------------------
-
+    /** Same cycle with N concurrent users, enabled with -Dperf.users=1,2,4,... */
     @Test
-    public void projectPerformance() throws Exception {
+    @EnabledIfSystemProperty(named = "perf.users", matches = ".+")
+    public void projectConcurrentPerformance() throws Exception {
 
-        PerformanceMonitor monitor = new PerformanceMonitor();
+        VirtualUsers load = new VirtualUsers();
 
-        for (int scale : SCALES) {
-            for (int i = 0; i < scale; i++) {
-                final int index = i; // Declare a final variable to use in the lambda
+        for (int users : VirtualUsers.userCounts()) {
+            load.run(users, (user, i, monitor) -> {
+                int[] id = new int[1];
 
-                // -------- ADD --------
-                long addMs = measure(() -> createProject("proj-" + scale + "-" + index));
-                int id = createProject("proj-perf-" + scale + "-" + index);
-                monitor.recordAdd(scale, addMs);
+                long addNs = Api.measure(() ->
+                        id[0] = api.create("projects", Api.project("proj-vu-" + users + "-" + user + "-" + i)));
+                monitor.recordAdd(users, addNs);
 
-                // -------- UPDATE --------
-                long updateMs = measure(() -> updateProject(id));
-                monitor.recordUpdate(updateMs);
+                long updateNs = Api.measure(() ->
+                        api.update("projects", id[0], Api.updated("projects", id[0])));
+                monitor.recordUpdate(updateNs);
 
-                // -------- DELETE --------
-                long deleteMs = measure(() -> deleteProject(id));
-                monitor.recordDelete(deleteMs);
-            }
+                long deleteNs = Api.measure(() -> api.delete("projects", id[0]));
+                monitor.recordDelete(deleteNs);
+            });
         }
 
-        monitor.writeCSV("project_metrics.csv");
+        load.writeCSV("project_concurrency_metrics.csv");
     }
 }
@@ -0,0 +1,91 @@
+package ecse429;
+
+import com.google.gson.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Read path: GET by id, full list, filtered list and HEAD against a seeded
+ * population, with keys drawn from the -Dperf.reads distributions (e.g.
+ * uniform,hotspot,zipfian). Ops are recorded as e.g. "get_by_id_zipfian" with
+ * the population as the scale.
+ */
+@EnabledIfSystemProperty(named = "perf.reads", matches = ".+")
+public class ReadTests {
+
+    private static final Api api = new Api();
+    private static final int POPULATION = Integer.getInteger("perf.read.population", 1000);
+    private static final int SAMPLES = Integer.getInteger("perf.read.samples", 500);
+    private static final int LIST_SAMPLES = Integer.getInteger("perf.list.samples", 10);
+
+    private static String[] distributions() {
+        return System.getProperty("perf.reads").trim().split("\\s*,\\s*");
+    }
+
+    /** Seeds POPULATION instances; every fourth one gets {@code field = match}. */
+    private int[] seed(String collection, String prefix, String field, JsonPrimitive match) throws Exception {
+        int[] ids = new int[POPULATION];
+        Api.parallel(POPULATION, i -> {
+            JsonObject body = Api.body(collection, prefix + "-read-" + i).toJsonObject();
+            if (i % 4 == 0) body.add(field, match);
+            return api.createAsync(collection, body).thenAccept(id -> ids[i] = id);
+        });
+        return ids;
+    }
+
+    private void run(String collection, String prefix, String field, JsonPrimitive match, String csv)
+            throws Exception {
+
+        PerformanceMonitor monitor = new PerformanceMonitor();
+        int[] ids = seed(collection, prefix, field, match);
+        String filter = "/" + collection + "?" + field + "=" + match.getAsString();
+
+        // ---------- POINT READS ----------
+        for (String dist : distributions()) {
+            KeyChooser keys = KeyChooser.named(dist, POPULATION, 429);
+
+            for (int i = 0; i < SAMPLES; i++) {
+                String path = "/" + collection + "/" + ids[keys.next()];
+                long getNs = Api.measure(() -> api.get(path));
+                monitor.record("get_by_id_" + dist, POPULATION, getNs);
+            }
+
+            for (int i = 0; i < SAMPLES; i++) {
+                String path = "/" + collection + "/" + ids[keys.next()];
+                long headNs = Api.measure(() -> api.head(path));
+                monitor.record("head_by_id_" + dist, POPULATION, headNs);
+            }
+        }
+
+        // ---------- LISTS ----------
+        for (int i = 0; i < LIST_SAMPLES; i++) {
+            long listNs = Api.measure(() -> api.get("/" + collection));
+            monitor.record("list", POPULATION, listNs);
+
+            long filteredNs = Api.measure(() -> api.get(filter));
+            monitor.record("list_filtered", POPULATION, filteredNs);
+
+            long headNs = Api.measure(() -> api.head("/" + collection));
+            monitor.record("head_list", POPULATION, headNs);
+        }
+
+        monitor.writeLatencyCSV(csv + "_read_metrics_latency.csv");
+
+        Api.parallel(POPULATION, i -> api.deleteAsync(collection, ids[i]));
+    }
+
+    @Test
+    public void todoReadPerformance() throws Exception {
+        run("todos", "todo", "doneStatus", new JsonPrimitive(true), "todo");
+    }
+
+    @Test
+    public void projectReadPerformance() throws Exception {
+        run("projects", "proj", "completed", new JsonPrimitive(true), "project");
+    }
+
+    @Test
+    public void categoryReadPerformance() throws Exception {
+        run("categories", "cat", "description", new JsonPrimitive("hot"), "category");
+    }
+}
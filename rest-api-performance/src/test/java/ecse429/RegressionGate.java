@@ -0,0 +1,221 @@
+package ecse429;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Compares a candidate run against a baseline and fails on regressions.
+ *
+ *   RegressionGate &lt;baseline dir&gt; &lt;candidate dir&gt;
+ *
+ * Every per-iteration metrics CSV (the files with add_ms/update_ms/delete_ms
+ * columns) under the baseline is matched with the one at the same relative
+ * path under the candidate. For each endpoint and op it reports p50/p90/p99 deltas, the
+ * change in serial throughput (1000 / mean ms, one closed-loop user), a
+ * two-sided Mann-Whitney U test and the Kolmogorov-Smirnov distance.
+ *
+ * Each side's calibration_offset.csv (see Calibration), if it has one, is
+ * taken off its latencies first.
+ *
+ * An op regresses when the shift is significant (p &lt; -Dperf.gate.alpha,
+ * default 0.05) and either p99 grew by more than -Dperf.gate.p99 (default
+ * 0.10 = 10%) or throughput fell by more than -Dperf.gate.throughput
+ * (default 0.10). Exits 1 if anything regressed, 2 on bad input.
+ */
+public class RegressionGate {
+
+    private static final double ALPHA = Double.parseDouble(System.getProperty("perf.gate.alpha", "0.05"));
+    private static final double P99_LIMIT = Double.parseDouble(System.getProperty("perf.gate.p99", "0.10"));
+    private static final double TPUT_LIMIT = Double.parseDouble(System.getProperty("perf.gate.throughput", "0.10"));
+
+    private static final String[] OPS = {"add", "update", "delete"};
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: RegressionGate <baseline dir> <candidate dir>");
+            System.exit(2);
+        }
+
+        Map<String, Path> baseline = metricFiles(Paths.get(args[0]));
+        Map<String, Path> candidate = metricFiles(Paths.get(args[1]));
+        if (baseline.isEmpty()) {
+            System.err.println("No metrics CSVs under " + args[0]);
+            System.exit(2);
+        }
+
+        System.out.printf("%-28s %-7s %8s %8s %8s %8s %8s %9s %6s  %s%n",
+                "endpoint", "op", "p50", "p90", "p99", "tput", "U p", "KS D", "n", "verdict");
+
+        double baseOffset = Calibration.offsetMs(Paths.get(args[0]));
+        double candOffset = Calibration.offsetMs(Paths.get(args[1]));
+
+        int regressions = 0, compared = 0;
+        for (Map.Entry<String, Path> e : baseline.entrySet()) {
+            String endpoint = e.getKey().replace("_metrics.csv", "");
+            Path other = candidate.get(e.getKey());
+            if (other == null) {
+                System.out.printf("%-28s missing from candidate%n", endpoint);
+                continue;
+            }
+
+            Map<String, double[]> base = load(e.getValue(), baseOffset);
+            Map<String, double[]> cand = load(other, candOffset);
+            for (String op : OPS) {
+                double[] a = base.get(op), b = cand.get(op);
+                if (a == null || b == null || a.length < 2 || b.length < 2) continue;
+                compared++;
+                if (report(endpoint, op, a, b)) regressions++;
+            }
+        }
+
+        System.out.printf("%n%d of %d endpoint ops regressed (p99 > +%.0f%% or throughput < -%.0f%%, p < %.2f)%n",
+                regressions, compared, P99_LIMIT * 100, TPUT_LIMIT * 100, ALPHA);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /** Prints one row; true if it is a regression. */
+    private static boolean report(String endpoint, String op, double[] base, double[] cand) {
+        Arrays.sort(base);
+        Arrays.sort(cand);
+
+        double d50 = delta(percentile(base, 50), percentile(cand, 50));
+        double d90 = delta(percentile(base, 90), percentile(cand, 90));
+        double d99 = delta(percentile(base, 99), percentile(cand, 99));
+        double dTput = delta(1000 / mean(base), 1000 / mean(cand));
+
+        double p = mannWhitneyP(base, cand);
+        double ks = ksDistance(base, cand);
+
+        boolean significant = p < ALPHA;
+        boolean regressed = significant && (d99 > P99_LIMIT || dTput < -TPUT_LIMIT);
+        String verdict = regressed ? "REGRESSION"
+                : significant && (d99 < -P99_LIMIT || dTput > TPUT_LIMIT) ? "improved"
+                : "ok";
+
+        System.out.printf("%-28s %-7s %+7.1f%% %+7.1f%% %+7.1f%% %+7.1f%% %8.4f %9.3f %6d  %s%n",
+                endpoint, op, 100 * d50, 100 * d90, 100 * d99, 100 * dTput, p, ks, cand.length, verdict);
+        return regressed;
+    }
+
+    // ---------- INPUT ----------
+
+    /**
+     * Path relative to {@code dir} (with '/' separators) -> path of every
+     * per-iteration metrics CSV below it, so same-named files in different
+     * suite directories are kept apart.
+     */
+    private static Map<String, Path> metricFiles(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) throw new FileNotFoundException(dir + " is not a directory");
+
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files
+                    .filter(f -> f.getFileName().toString().endsWith("_metrics.csv"))
+                    .filter(RegressionGate::hasOpColumns)
+                    .collect(Collectors.toMap(f -> relative(dir, f), f -> f, (x, y) -> x, TreeMap::new));
+        }
+    }
+
+    private static String relative(Path dir, Path file) {
+        return dir.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    private static boolean hasOpColumns(Path csv) {
+        try (BufferedReader br = Files.newBufferedReader(csv)) {
+            String header = br.readLine();
+            return header != null && Arrays.asList(header.split(",")).contains("add_ms");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** op -> its latency column, less {@code offsetMs}. */
+    private static Map<String, double[]> load(Path csv, double offsetMs) throws IOException {
+        List<String> lines = Files.readAllLines(csv);
+        List<String> header = Arrays.asList(lines.get(0).split(","));
+
+        Map<String, double[]> columns = new HashMap<>();
+        for (String op : OPS) {
+            int col = header.indexOf(op + "_ms");
+            if (col < 0) continue;
+            columns.put(op, lines.stream().skip(1)
+                    .map(line -> line.split(","))
+                    .filter(f -> f.length > col)
+                    .mapToDouble(f -> Double.parseDouble(f[col]) - offsetMs)
+                    .toArray());
+        }
+        return columns;
+    }
+
+    // ---------- STATISTICS ----------
+
+    // older baselines store whole ms, so a 0 there means "under 1ms"
+    private static double delta(double base, double cand) {
+        return (cand - base) / Math.max(base, 1e-3);
+    }
+
+    private static double mean(double[] v) {
+        return Arrays.stream(v).average().orElse(Double.NaN);
+    }
+
+    /** Nearest-rank percentile of sorted values. */
+    private static double percentile(double[] sorted, double p) {
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /**
+     * Two-sided Mann-Whitney U p-value, normal approximation with tie
+     * correction. Both arrays sorted.
+     */
+    static double mannWhitneyP(double[] a, double[] b) {
+        int n1 = a.length, n2 = b.length, n = n1 + n2;
+
+        // merge and rank, giving ties their average rank
+        double rankSumA = 0, tieTerm = 0;
+        int i = 0, j = 0;
+        while (i < n1 || j < n2) {
+            double v = j >= n2 || (i < n1 && a[i] <= b[j]) ? a[i] : b[j];
+            int fromA = 0, fromB = 0;
+            while (i < n1 && a[i] == v) { i++; fromA++; }
+            while (j < n2 && b[j] == v) { j++; fromB++; }
+
+            int tied = fromA + fromB;
+            double firstRank = i + j - tied + 1;
+            rankSumA += fromA * (firstRank + (tied - 1) / 2.0);
+            tieTerm += (double) tied * tied * tied - tied;
+        }
+
+        double u = rankSumA - n1 * (n1 + 1) / 2.0;
+        double mu = n1 * (double) n2 / 2;
+        double sigma = Math.sqrt(n1 * (double) n2 / 12 * ((n + 1) - tieTerm / ((double) n * (n - 1))));
+        if (sigma == 0) return 1.0;
+
+        double z = (Math.abs(u - mu) - 0.5) / sigma;
+        return Math.min(1.0, erfc(Math.max(z, 0) / Math.sqrt(2)));
+    }
+
+    /** Largest gap between the two empirical CDFs. Both arrays sorted. */
+    static double ksDistance(double[] a, double[] b) {
+        int i = 0, j = 0;
+        double d = 0;
+        while (i < a.length && j < b.length) {
+            double v = Math.min(a[i], b[j]);
+            while (i < a.length && a[i] == v) i++;
+            while (j < b.length && b[j] == v) j++;
+            d = Math.max(d, Math.abs((double) i / a.length - (double) j / b.length));
+        }
+        return d;
+    }
+
+    /** Complementary error function, fractional error below 1.2e-7 (Numerical Recipes erfcc). */
+    private static double erfc(double x) {
+        double z = Math.abs(x);
+        double t = 1 / (1 + 0.5 * z);
+        double r = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+                + t * (-0.82215223 + t * 0.17087277)))))))));
+        return x >= 0 ? r : 2 - r;
+    }
+}
@@ -0,0 +1,209 @@
+package ecse429;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A request body kept as a pre-serialized Template plus the one value that
+ * varies per request: a string (escaped and UTF-8 encoded as it is written)
+ * and/or an id written as digits. Per request there is one small object
+ * from with() and no JSON tree or string concatenation; the bytes go
+ * straight into the sender's buffer (PhasedClient) or one array
+ * (java.net.http), which frozen() makes a shared one. Templates are JSON and
+ * can carry an XML twin, for the same body under -Dperf.format=xml (see as()).
+ */
+public final class RequestBody {
+
+    private static final long NO_ID = -1;
+
+    /** The fixed JSON around the varying value, e.g. {"title":" and ","done":false}. */
+    public static final class Template {
+        private final byte[] before, after;
+        private final PayloadFormat format;
+        private final Template xml;
+
+        public Template(String before, String after) {
+            this(before.getBytes(StandardCharsets.UTF_8), after.getBytes(StandardCharsets.UTF_8),
+                    PayloadFormat.JSON, null);
+        }
+
+        private Template(byte[] before, byte[] after, PayloadFormat format, Template xml) {
+            this.before = before;
+            this.after = after;
+            this.format = format;
+            this.xml = xml;
+        }
+
+        /** This template with an XML form, e.g. <todo><title> and </title></todo>. */
+        public Template withXml(String before, String after) {
+            return new Template(this.before, this.after, PayloadFormat.JSON, new Template(
+                    before.getBytes(StandardCharsets.UTF_8), after.getBytes(StandardCharsets.UTF_8),
+                    PayloadFormat.XML, null));
+        }
+
+        public RequestBody with(String text) {
+            return new RequestBody(this, text, NO_ID);
+        }
+
+        public RequestBody with(long id) {
+            return new RequestBody(this, "", id);
+        }
+
+        public RequestBody with(String text, long id) {
+            return new RequestBody(this, text, id);
+        }
+    }
+
+    private final Template template;
+    private final String text;
+    private final long id;
+    private final byte[] encoded;    // set by frozen()
+
+    private RequestBody(Template template, String text, long id) {
+        this(template, text, id, null);
+    }
+
+    private RequestBody(Template template, String text, long id, byte[] encoded) {
+        if (id < NO_ID) throw new IllegalArgumentException("Negative id " + id);
+        this.template = template;
+        this.text = text;
+        this.id = id;
+        this.encoded = encoded;
+    }
+
+    /** This body encoded once, so each send is a bulk copy; for large bodies sent repeatedly. */
+    public RequestBody frozen() {
+        return encoded != null ? this : new RequestBody(template, text, id, bytes());
+    }
+
+    /** The same value written as {@code format}; the template must have that form. */
+    public RequestBody as(PayloadFormat format) {
+        if (format == template.format) return this;
+        if (template.xml == null) throw new IllegalStateException("No " + format + " form for " + this);
+        RequestBody xml = new RequestBody(template.xml, text, id);
+        return encoded == null ? xml : xml.frozen();
+    }
+
+    public String mediaType() {
+        return template.format.mediaType();
+    }
+
+    /** Encoded size in bytes. */
+    public int length() {
+        if (encoded != null) return encoded.length;
+        int n = template.before.length + template.after.length;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (pair(i)) {
+                n += 4;
+                i++;
+            } else {
+                n += encodedLength(c, template.format);
+            }
+        }
+        if (id != NO_ID) n += digits(id);
+        return n;
+    }
+
+    /** Writes the UTF-8 body into {@code out}, which must have length() bytes free. */
+    public void writeTo(ByteBuffer out) {
+        if (encoded != null) {
+            out.put(encoded);
+            return;
+        }
+        out.put(template.before);
+        boolean xml = template.format == PayloadFormat.XML;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (xml && (c == '&' || c == '<' || c == '>' || c < 0x20)) {
+                xmlEscape(out, c);
+            } else if (c >= 0x20 && c < 0x80 && (xml || c != '"' && c != '\\')) {
+                out.put((byte) c);
+            } else if (c == '"' || c == '\\') {
+                out.put((byte) '\\').put((byte) c);
+            } else if (c < 0x20) {
+                out.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                        .put((byte) Character.forDigit(c >> 4, 16)).put((byte) Character.forDigit(c & 0xf, 16));
+            } else if (pair(i)) {
+                int cp = Character.toCodePoint(c, text.charAt(++i));
+                out.put((byte) (0xf0 | cp >> 18)).put((byte) (0x80 | cp >> 12 & 0x3f))
+                        .put((byte) (0x80 | cp >> 6 & 0x3f)).put((byte) (0x80 | cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                out.put((byte) '?');
+            } else if (c < 0x800) {
+                out.put((byte) (0xc0 | c >> 6)).put((byte) (0x80 | c & 0x3f));
+            } else {
+                out.put((byte) (0xe0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3f)).put((byte) (0x80 | c & 0x3f));
+            }
+        }
+        if (id != NO_ID) putDigits(out, id);
+        out.put(template.after);
+    }
+
+    public byte[] toBytes() {
+        return encoded != null ? encoded.clone() : bytes();
+    }
+
+    /** toBytes() without the copy of a frozen body, for senders that only read the array. */
+    byte[] bytes() {
+        if (encoded != null) return encoded;
+        byte[] bytes = new byte[length()];
+        writeTo(ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    /** A mutable copy, for the few callers that add fields (e.g. ReadTests' filter match). */
+    public JsonObject toJsonObject() {
+        return JsonParser.parseString(toString()).getAsJsonObject();
+    }
+
+    @Override
+    public String toString() {
+        return new String(toBytes(), StandardCharsets.UTF_8);
+    }
+
+    // ---------- ENCODING ----------
+
+    private boolean pair(int i) {
+        return Character.isHighSurrogate(text.charAt(i)) && i + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(i + 1));
+    }
+
+    private static int encodedLength(char c, PayloadFormat format) {
+        if (format == PayloadFormat.XML) {
+            if (c == '&') return 5;
+            if (c == '<' || c == '>') return 4;
+            if (c < 0x20 || c == '"' || c == '\\') return 1;
+        }
+        if (c == '"' || c == '\\') return 2;
+        if (c < 0x20) return 6;
+        if (c < 0x80) return 1;
+        if (c < 0x800) return 2;
+        if (Character.isSurrogate(c)) return 1;    // unpaired: encoded as '?'
+        return 3;
+    }
+
+    /** &amp; &lt; &gt; as entities; control characters XML 1.0 cannot hold become '?'. */
+    private static void xmlEscape(ByteBuffer out, char c) {
+        switch (c) {
+            case '&': out.put((byte) '&').put((byte) 'a').put((byte) 'm').put((byte) 'p').put((byte) ';'); break;
+            case '<': out.put((byte) '&').put((byte) 'l').put((byte) 't').put((byte) ';'); break;
+            case '>': out.put((byte) '&').put((byte) 'g').put((byte) 't').put((byte) ';'); break;
+            case '\t': case '\n': case '\r': out.put((byte) c); break;
+            default: out.put((byte) '?');
+        }
+    }
+
+    private static int digits(long v) {
+        int n = 1;
+        for (v /= 10; v > 0; v /= 10) n++;
+        return n;
+    }
+
+    private static void putDigits(ByteBuffer out, long v) {
+        if (v >= 10) putDigits(out, v / 10);
+        out.put((byte) ('0' + v % 10));
+    }
+}
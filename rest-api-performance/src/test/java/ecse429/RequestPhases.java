@@ -0,0 +1,93 @@
+package ecse429;
+
+/**
+ * Phase times of the requests made inside one Api.measure block, per
+ * thread: connection acquisition, request write, time to first response
+ * byte and body transfer. Only PhasedClient reports phases, so with the
+ * default HttpClient transport every block reads as no requests.
+ */
+public final class RequestPhases {
+
+    /** Values per op in the result sink: connect, write, ttfb, body ms, new connections. */
+    public static final int VALUES = 5;
+
+    private static final ThreadLocal<RequestPhases> CURRENT = ThreadLocal.withInitial(RequestPhases::new);
+    private static final ThreadLocal<RequestPhases> LAST = ThreadLocal.withInitial(RequestPhases::new);
+
+    private boolean active;
+    private int requests, newConnections;
+    private long connectNanos, writeNanos, ttfbNanos, bodyNanos;
+
+    private RequestPhases() {}
+
+    static void begin() {
+        RequestPhases p = CURRENT.get();
+        p.reset();
+        p.active = true;
+    }
+
+    static void end() {
+        RequestPhases p = CURRENT.get();
+        p.active = false;
+        LAST.get().copy(p);
+    }
+
+    /** Adds one request's phases to the block in progress on this thread, if any. */
+    static void add(boolean newConnection, long connect, long write, long ttfb, long body) {
+        RequestPhases p = CURRENT.get();
+        if (!p.active) return;     // setup calls outside measure()
+        p.requests++;
+        if (newConnection) p.newConnections++;
+        p.connectNanos += connect;
+        p.writeNanos += write;
+        p.ttfbNanos += ttfb;
+        p.bodyNanos += body;
+    }
+
+    /** Phases of the last measured block on this thread. */
+    public static RequestPhases last() {
+        return LAST.get();
+    }
+
+    /** Summed over the block's requests: writing the request. */
+    long writeNanos() {
+        return writeNanos;
+    }
+
+    /** Summed over the block's requests: request written to first response byte. */
+    long ttfbNanos() {
+        return ttfbNanos;
+    }
+
+    /** Summed over the block's requests: first response byte to the end of the body. */
+    long bodyNanos() {
+        return bodyNanos;
+    }
+
+    /** Writes the VALUES phase columns to {@code out[at..]}: ms and a connection count, or -1 if unknown. */
+    public void into(double[] out, int at) {
+        if (requests == 0) {
+            for (int i = 0; i < VALUES; i++) out[at + i] = -1;
+            return;
+        }
+        out[at] = connectNanos / 1e6;
+        out[at + 1] = writeNanos / 1e6;
+        out[at + 2] = ttfbNanos / 1e6;
+        out[at + 3] = bodyNanos / 1e6;
+        out[at + 4] = newConnections;
+    }
+
+    private void reset() {
+        requests = newConnections = 0;
+        connectNanos = writeNanos = ttfbNanos = bodyNanos = 0;
+    }
+
+    private void copy(RequestPhases p) {
+        requests = p.requests;
+        newConnections = p.newConnections;
+        connectNanos = p.connectNanos;
+        writeNanos = p.writeNanos;
+        ttfbNanos = p.ttfbNanos;
+        bodyNanos = p.bodyNanos;
+    }
+}
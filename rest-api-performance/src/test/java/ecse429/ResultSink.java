@@ -0,0 +1,154 @@
+package ecse429;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Append-only spool of per-iteration result rows in fixed-size binary
+ * records, written through a FileChannel as the run goes.
+ *
+ * The heap holds a single buffer whatever the run length, and a crashed run
+ * loses at most the last second (or buffer) of rows. toCSV turns a spool,
+ * complete or cut short, into the usual metrics CSV; main does the same from
+ * the command line.
+ */
+public class ResultSink implements Closeable {
+
+    private static final int MAGIC = 0x50524d31;    // "PRM1"
+
+    /**
+     * add, update, delete: latency ms, then host CPU %, then available MiB,
+     * then server GC pause ms overlapping the op (-1 without a GcProbe);
+     * then per op its RequestPhases (-1 without -Dperf.phases).
+     */
+    public static final int VALUES = 12 + 3 * RequestPhases.VALUES;
+
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_BYTES = Integer.BYTES + Long.BYTES + VALUES * Double.BYTES;
+
+    private static final int BUFFER_RECORDS = Integer.getInteger("perf.sink.records", 512);
+    private static final long FLUSH_NANOS = 1_000_000_000L;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_BYTES * BUFFER_RECORDS);
+    private long lastFlush = System.nanoTime();
+
+    public ResultSink(Path path) throws IOException {
+        channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).putInt(VALUES);
+        flush();
+    }
+
+    public void append(int scale, long timestamp, double... values) throws IOException {
+        if (values.length != VALUES) {
+            throw new IllegalArgumentException("Expected " + VALUES + " values, got " + values.length);
+        }
+
+        buffer.putInt(scale).putLong(timestamp);
+        for (double v : values) buffer.putDouble(v);
+
+        if (!buffer.hasRemaining() || System.nanoTime() - lastFlush > FLUSH_NANOS) flush();
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+        lastFlush = System.nanoTime();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // ---------- CSV CONVERSION ----------
+
+    /** Writes every whole record in {@code spool} to {@code filename}; a torn last record is dropped. */
+    public static long toCSV(Path spool, String filename) throws IOException {
+        long rows = 0;
+
+        try (FileChannel in = FileChannel.open(spool, StandardOpenOption.READ);
+             PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter(filename)))) {
+
+            ByteBuffer buf = ByteBuffer.allocate(RECORD_BYTES * BUFFER_RECORDS);
+            readFully(in, buf, HEADER_BYTES);
+            if (buf.getInt() != MAGIC || buf.getInt() != VALUES) {
+                throw new IOException(spool + " is not a result spool");
+            }
+            buf.clear();
+
+            pw.println(
+                "scale,timestamp," +
+                "add_ms,update_ms,delete_ms," +
+                "add_cpu,update_cpu,delete_cpu," +
+                "add_mem,update_mem,delete_mem," +
+                "add_gc_ms,update_gc_ms,delete_gc_ms," +
+                phaseColumns("add") + "," + phaseColumns("update") + "," + phaseColumns("delete")
+            );
+
+            double[] v = new double[VALUES];
+            while (in.read(buf) > 0 || buf.position() > 0) {
+                buf.flip();
+                if (buf.remaining() < RECORD_BYTES && in.position() == in.size()) break;
+
+                while (buf.remaining() >= RECORD_BYTES) {
+                    int scale = buf.getInt();
+                    long timestamp = buf.getLong();
+                    for (int i = 0; i < VALUES; i++) v[i] = buf.getDouble();
+
+                    pw.printf(
+                        "%d,%d,%.4f,%.4f,%.4f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.3f,%.3f,%.3f",
+                        scale, timestamp,
+
+                        v[0], v[1], v[2],
+
+                        v[3], v[4], v[5],
+
+                        v[6], v[7], v[8],
+
+                        v[9], v[10], v[11]
+                    );
+                    for (int i = 12; i < VALUES; i++) {
+                        boolean count = (i - 12) % RequestPhases.VALUES == RequestPhases.VALUES - 1;
+                        pw.printf(count ? ",%.0f" : ",%.4f", v[i]);
+                    }
+                    pw.println();
+                    rows++;
+                }
+                buf.compact();
+            }
+        }
+
+        return rows;
+    }
+
+    private static String phaseColumns(String op) {
+        return op + "_connect_ms," + op + "_write_ms," + op + "_ttfb_ms," + op + "_body_ms," + op + "_new_conns";
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buf, int bytes) throws IOException {
+        buf.limit(bytes);
+        while (buf.hasRemaining()) {
+            if (in.read(buf) < 0) throw new EOFException("Result spool shorter than its header");
+        }
+        buf.flip();
+    }
+
+    /** Recovers the CSV from a spool left behind by an interrupted run: ResultSink &lt;spool&gt; &lt;csv&gt; */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: ResultSink <spool.rows> <out.csv>");
+            System.exit(2);
+        }
+        long rows = toCSV(Paths.get(args[0]), args[1]);
+        System.out.printf("%d rows written to %s%n", rows, args[1]);
+    }
+}
@@ -0,0 +1,276 @@
+package ecse429;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stepped load ramp that looks for the point where the server saturates.
+ *
+ * Each stage raises the load, either closed-loop users (rampUsers) or an
+ * open-loop arrival rate in cycles per second (rampRate). A stage is held
+ * in windows of perf.ramp.window.ms (default 1000). It ends once the
+ * throughput of the last perf.ramp.windows windows (default 5) has a CV of
+ * at most perf.ramp.cv (default 0.1), or after perf.ramp.max.windows
+ * (default 30). The ramp stops early when a stage's error rate exceeds
+ * perf.ramp.max.errors (default 0.05). Unless -Dperf.warmup=false, the
+ * first stage is run once unrecorded beforehand to warm up both sides.
+ *
+ * The knee is the stage with the highest power (throughput / p99): past it,
+ * each extra unit of load buys less throughput than it costs in latency.
+ * The first stage whose throughput gained less than perf.ramp.gain (default
+ * 0.05) over the stage before is reported as saturated.
+ */
+public class SaturationFinder {
+
+    /** One closed-loop cycle; records its ops into {@code monitor} at scale {@code users}. */
+    @FunctionalInterface
+    public interface Cycle { void run(int users, int user, int iteration, PerformanceMonitor monitor) throws Exception; }
+
+    private static final long WINDOW_MS = Long.getLong("perf.ramp.window.ms", 1000);
+    private static final int WINDOWS = Integer.getInteger("perf.ramp.windows", 5);
+    private static final int MAX_WINDOWS = Integer.getInteger("perf.ramp.max.windows", 30);
+    private static final double CV = Double.parseDouble(System.getProperty("perf.ramp.cv", "0.1"));
+    private static final double MAX_ERRORS = Double.parseDouble(System.getProperty("perf.ramp.max.errors", "0.05"));
+    private static final double GAIN = Double.parseDouble(System.getProperty("perf.ramp.gain", "0.05"));
+    private static final boolean WARMUP = !"false".equals(System.getProperty("perf.warmup"));
+
+    private static class Stage {
+        int load;
+        int windows;
+        long cycles, errors;
+        long elapsedNanos;
+        LatencyHistogram latency;
+
+        double throughput() { return cycles / (elapsedNanos / 1e9); }
+        double errorRate()  { return cycles + errors == 0 ? 0 : errors / (double) (cycles + errors); }
+        double p99Ms()      { return latency.percentile(99) / 1e6; }
+        double power()      { return latency.count() == 0 ? 0 : throughput() / p99Ms(); }
+    }
+
+    private final String mode;
+    private final PerformanceMonitor monitor = new PerformanceMonitor();
+    private final List<Stage> stages = new ArrayList<>();
+
+    /** @param mode "users" or "rate", used in the CSV and the stage column */
+    private SaturationFinder(String mode) {
+        this.mode = mode;
+    }
+
+    /** Stage loads from -Dperf.ramp.stages, e.g. 1,2,4,8 users or 50,100,200 cycles/s. */
+    public static int[] stages(String defaults) {
+        return Arrays.stream(System.getProperty("perf.ramp.stages", defaults).split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    }
+
+    // ---------- CLOSED LOOP ----------
+
+    /**
+     * Ramps closed-loop users running {@code cycle} back to back. The cycle
+     * records its own ops; the harness times each whole cycle as "cycle".
+     */
+    public static SaturationFinder rampUsers(int[] userCounts, Cycle cycle) throws Exception {
+        SaturationFinder finder = new SaturationFinder("users");
+
+        if (WARMUP) finder.usersStage(userCounts[0], cycle, new PerformanceMonitor());
+        for (int users : userCounts) {
+            if (finder.finish(finder.usersStage(users, cycle, finder.monitor))) break;
+        }
+        return finder;
+    }
+
+    private Stage usersStage(int users, Cycle cycle, PerformanceMonitor into) throws Exception {
+        AtomicLong cycles = new AtomicLong(), errors = new AtomicLong();
+        List<PerformanceMonitor> perUser = new ArrayList<>();
+        for (int u = 0; u < users; u++) perUser.add(new PerformanceMonitor());
+
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService pool = VirtualUsers.newExecutor(users);
+        try {
+            for (int u = 0; u < users; u++) {
+                final int user = u;
+                pool.submit(() -> {
+                    PerformanceMonitor m = perUser.get(user);
+                    for (int i = 0; !stop.get(); i++) {
+                        long t0 = System.nanoTime();
+                        try {
+                            cycle.run(users, user, i, m);
+                            m.record("cycle", users, System.nanoTime() - t0);
+                            cycles.incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                });
+            }
+
+            Stage stage = hold(users, cycles, errors);
+            stop.set(true);
+            pool.shutdown();
+            pool.awaitTermination(30, TimeUnit.SECONDS);
+
+            for (PerformanceMonitor m : perUser) into.merge(m);
+            return stage;
+        } finally {
+            stop.set(true);
+            pool.shutdownNow();
+        }
+    }
+
+    // ---------- OPEN LOOP ----------
+
+    /**
+     * Ramps an open-loop arrival rate; {@code cycle} starts one asynchronous
+     * cycle. Cycle latency is measured from its intended start, so queueing
+     * behind a saturated server counts against it.
+     */
+    public static SaturationFinder rampRate(int[] rates, OpenLoop.AsyncOp cycle) throws Exception {
+        SaturationFinder finder = new SaturationFinder("rate");
+
+        if (WARMUP) finder.rateStage(rates[0], cycle, new PerformanceMonitor());
+        for (int rate : rates) {
+            Stage stage = finder.rateStage(rate, cycle, finder.monitor);
+            synchronized (finder.monitor) {
+                if (finder.finish(stage)) break;
+            }
+        }
+        return finder;
+    }
+
+    private Stage rateStage(int rate, OpenLoop.AsyncOp cycle, PerformanceMonitor into) throws InterruptedException {
+        AtomicLong cycles = new AtomicLong(), errors = new AtomicLong();
+        AtomicLong inFlight = new AtomicLong();
+        long interval = 1_000_000_000L / rate;
+
+        Thread sender = new Thread(() -> {
+            long start = System.nanoTime();
+            for (int i = 0; !Thread.currentThread().isInterrupted(); i++) {
+                long intended = start + i * interval;
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) LockSupport.parkNanos(wait);
+
+                inFlight.incrementAndGet();
+                CompletableFuture<?> f;
+                try {
+                    f = cycle.start(i);
+                } catch (RuntimeException e) {
+                    f = CompletableFuture.failedFuture(e);
+                }
+                f.whenComplete((r, e) -> {
+                    long end = System.nanoTime();
+                    synchronized (into) {
+                        if (e == null) into.record("cycle", rate, end - intended);
+                    }
+                    (e == null ? cycles : errors).incrementAndGet();
+                    inFlight.decrementAndGet();
+                });
+            }
+        }, "ramp-sender");
+
+        sender.start();
+        Stage stage = hold(rate, cycles, errors);
+        sender.interrupt();
+        sender.join();
+
+        // let this stage's stragglers finish before the next one starts
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) Thread.sleep(10);
+        return stage;
+    }
+
+    // ---------- STAGES ----------
+
+    /** Holds the current stage until its per-window throughput is steady. */
+    private Stage hold(int load, AtomicLong cycles, AtomicLong errors) throws InterruptedException {
+        Stage stage = new Stage();
+        stage.load = load;
+        SteadyState steady = new SteadyState(WINDOWS, CV);
+
+        long start = System.nanoTime();
+        long c0 = cycles.get(), e0 = errors.get();
+        long last = c0;
+        while (stage.windows < MAX_WINDOWS) {
+            Thread.sleep(WINDOW_MS);
+            long now = cycles.get();
+            steady.add(now - last);
+            last = now;
+            stage.windows++;
+            if (steady.isSteady()) break;
+        }
+
+        stage.elapsedNanos = System.nanoTime() - start;
+        stage.cycles = cycles.get() - c0;
+        stage.errors = errors.get() - e0;
+        return stage;
+    }
+
+    /** Records a finished stage; true if the ramp should stop. */
+    private boolean finish(Stage stage) {
+        stage.latency = monitor.histogram("cycle", stage.load);
+        stages.add(stage);
+
+        System.out.printf("%s=%d: %.1f cycles/s, p99 %.2fms, errors %.2f%%, %d windows%n",
+                mode, stage.load, stage.throughput(), stage.p99Ms(), 100 * stage.errorRate(), stage.windows);
+
+        if (stage.errorRate() > MAX_ERRORS) {
+            System.out.printf("%s=%d: error rate above %.0f%%, stopping the ramp%n", mode, stage.load, 100 * MAX_ERRORS);
+            return true;
+        }
+        return false;
+    }
+
+    /** Stage with the highest throughput / p99, or -1 if there are none. */
+    private int knee() {
+        int best = -1;
+        for (int s = 0; s < stages.size(); s++) {
+            if (best < 0 || stages.get(s).power() > stages.get(best).power()) best = s;
+        }
+        return best;
+    }
+
+    /** First stage that gained less than perf.ramp.gain throughput, or -1. */
+    private int saturated() {
+        for (int s = 1; s < stages.size(); s++) {
+            if (stages.get(s).throughput() < stages.get(s - 1).throughput() * (1 + GAIN)) return s;
+        }
+        return -1;
+    }
+
+    // ---------- CSV OUTPUT ----------
+
+    /** One row per stage, the knee and saturation point flagged; per-op histograms go to _latency.csv. */
+    public void writeCSV(String filename) {
+        int knee = knee(), saturated = saturated();
+
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path(filename)))) {
+
+            pw.println(mode + ",windows,seconds,cycles,errors,error_rate,throughput_cycles_s," +
+                    "p50_ms,p99_ms,max_ms,power,knee,saturated");
+
+            for (int s = 0; s < stages.size(); s++) {
+                Stage st = stages.get(s);
+                pw.printf(
+                    "%d,%d,%.2f,%d,%d,%.4f,%.2f,%.4f,%.4f,%.4f,%.2f,%s,%s%n",
+                    st.load, st.windows, st.elapsedNanos / 1e9, st.cycles, st.errors, st.errorRate(),
+                    st.throughput(),
+                    st.latency.percentile(50) / 1e6, st.p99Ms(), st.latency.max() / 1e6,
+                    st.power(), s == knee, s == saturated
+                );
+            }
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        monitor.writeLatencyCSV(filename.replace(".csv", "_latency.csv"));
+
+        if (knee >= 0) {
+            Stage k = stages.get(knee);
+            System.out.printf("knee at %s=%d: %.1f cycles/s, p99 %.2fms%s%n", mode, k.load, k.throughput(), k.p99Ms(),
+                    saturated >= 0 ? String.format("; throughput flat from %s=%d", mode, stages.get(saturated).load) : "");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ecse429;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Saturation ramps over the CRUD cycle of each endpoint, enabled with
+ * -Dperf.ramp=users (closed-loop users, default stages 1..64) or
+ * -Dperf.ramp=rate (open-loop cycles per second, default 50..1600).
+ * See SaturationFinder for the stage and knee settings.
+ */
+@EnabledIfSystemProperty(named = "perf.ramp", matches = "users|rate")
+public class SaturationTests {
+
+    private static final Api api = new Api();
+    private static final String MODE = System.getProperty("perf.ramp");
+
+    private void ramp(String collection, String csv) throws Exception {
+
+        SaturationFinder finder;
+        if ("rate".equals(MODE)) {
+            finder = SaturationFinder.rampRate(SaturationFinder.stages("50,100,200,400,800,1600"), i ->
+                    api.createAsync(collection, Api.body(collection, "ramp-" + i))
+                            .thenCompose(id -> api.updateAsync(collection, id, Api.updated(collection, id))
+                                    // delete even after a failed update, so nothing outlives its cycle
+                                    .handle((r, e) -> api.deleteAsync(collection, id).thenApply(d -> {
+                                        if (e != null) throw new CompletionException(e);
+                                        return d;
+                                    }))
+                                    .thenCompose(d -> d)));
+        } else {
+            finder = SaturationFinder.rampUsers(SaturationFinder.stages("1,2,4,8,16,32,64"), (users, user, i, monitor) -> {
+                int[] id = new int[1];
+
+                long addNs = Api.measure(() ->
+                        id[0] = api.create(collection, Api.body(collection, "ramp-" + users + "-" + user + "-" + i)));
+                monitor.record("add", users, addNs);
+
+                try {
+                    long updateNs = Api.measure(() -> api.update(collection, id[0], Api.updated(collection, id[0])));
+                    monitor.record("update", users, updateNs);
+                } finally {
+                    long deleteNs = Api.measure(() -> api.delete(collection, id[0]));
+                    monitor.record("delete", users, deleteNs);
+                }
+            });
+        }
+
+        finder.writeCSV(csv + "_saturation_" + MODE + ".csv");
+    }
+
+    @Test
+    public void todoSaturation() throws Exception {
+        ramp("todos", "todo");
+    }
+
+    @Test
+    public void projectSaturation() throws Exception {
+        ramp("projects", "project");
+    }
+
+    @Test
+    public void categorySaturation() throws Exception {
+        ramp("categories", "category");
+    }
+}
@@ -0,0 +1,58 @@
+package ecse429;
+
+/**
+ * The scale loop shared by the CRUD and relationship suites: every scale in
+ * SCALES runs {@code scale} iterations of the suite's add/update/delete step,
+ * after a Warmup of the same step that is kept out of the main CSV.
+ *
+ * Each scale point runs as -Dperf.trials independent trials (default 1).
+ * With -Dperf.ci.target=0.05, trials continue until every op's confidence
+ * interval is within +/-5% of its mean, up to -Dperf.trials.max (default 30).
+ * Per-op means, medians and intervals go to &lt;name&gt;_stats.csv, and the
+ * server process's cost per request at each scale to &lt;name&gt;_server.csv.
+ */
+public final class ScaleLoop {
+
+    public static final int[] SCALES = {1, 5, 10, 50, 75, 100};
+
+    private static final int TRIALS = Integer.getInteger("perf.trials", 1);
+    private static final String CI_TARGET = System.getProperty("perf.ci.target");
+    private static final int MAX_TRIALS = Integer.getInteger("perf.trials.max", CI_TARGET == null ? TRIALS : 30);
+
+    /** One iteration: set up what it needs, then measure and record add, update and delete. */
+    @FunctionalInterface
+    public interface Iteration {
+        void run(int scale, int index, PerformanceMonitor monitor) throws Exception;
+    }
+
+    private ScaleLoop() {}
+
+    public static void run(String csv, Iteration iteration) throws Exception {
+
+        Warmup.run(csv, iteration);
+
+        PerformanceMonitor monitor = new PerformanceMonitor(csv);
+        TrialStats stats = new TrialStats();
+        ServerUsage usage = new ServerUsage();
+        double[] row = new double[TrialStats.OPS.length];
+
+        for (int scale : SCALES) {
+            usage.begin(scale);
+            int trials = 0;
+            do {
+                for (int i = 0; i < scale; i++) {
+                    iteration.run(scale, trials * scale + i, monitor);
+                    monitor.lastRow(row);
+                    stats.add(scale, trials, row);
+                }
+                trials++;
+            } while (trials < TRIALS || (CI_TARGET != null && trials < MAX_TRIALS
+                    && !stats.converged(scale, Double.parseDouble(CI_TARGET))));
+            usage.end();
+        }
+
+        monitor.writeCSV();
+        stats.writeCSV(csv.replace(".csv", "_stats.csv"));
+        usage.writeCSV(csv.replace(".csv", "_server.csv"));
+    }
+}
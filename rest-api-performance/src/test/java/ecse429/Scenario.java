@@ -0,0 +1,69 @@
+package ecse429;
+
+import com.google.gson.Gson;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * A workload declared as a weighted mix of operations, read from JSON:
+ *
+ * <pre>
+ * { "name": "production_mix", "users": 4, "iterations": 250,
+ *   "seed": { "todos": 200, "projects": 20 },
+ *   "operations": [ { "op": "getTodo", "weight": 70 },
+ *                   { "op": "createTodo", "weight": 15 }, ... ] }
+ * </pre>
+ *
+ * Runs for {@code durationSeconds} when set, otherwise {@code iterations}
+ * operations per user. See ScenarioEngine for the operation names.
+ */
+public class Scenario {
+
+    public static class Operation {
+        public String op;
+        public double weight;
+    }
+
+    public String name;
+    public int users = 1;
+    public int iterations = 100;
+    public long durationSeconds;
+    public Map<String, Integer> seed = new HashMap<>();
+    public List<Operation> operations = new ArrayList<>();
+
+    /**
+     * Loads a scenario from a file path, or by name from the bundled
+     * src/test/resources/scenarios/&lt;name&gt;.json.
+     */
+    public static Scenario load(String nameOrPath) throws IOException {
+        Path path = Paths.get(nameOrPath);
+        if (Files.isRegularFile(path)) {
+            try (Reader r = Files.newBufferedReader(path)) {
+                return parse(r, path.getFileName().toString());
+            }
+        }
+
+        InputStream in = Scenario.class.getResourceAsStream("/scenarios/" + nameOrPath + ".json");
+        if (in == null) {
+            throw new FileNotFoundException("No scenario file or bundled scenario: " + nameOrPath);
+        }
+        try (Reader r = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return parse(r, nameOrPath);
+        }
+    }
+
+    private static Scenario parse(Reader r, String fallbackName) {
+        Scenario s = new Gson().fromJson(r, Scenario.class);
+        if (s.name == null) s.name = fallbackName.replace(".json", "").replace('-', '_');
+        if (s.operations.isEmpty()) {
+            throw new IllegalArgumentException("Scenario " + s.name + " has no operations");
+        }
+        return s;
+    }
+
+    public int seed(String collection) {
+        return seed.getOrDefault(collection, 0);
+    }
+}
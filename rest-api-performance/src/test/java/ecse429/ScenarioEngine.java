@@ -0,0 +1,349 @@
+package ecse429;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.LongPredicate;
+
+/**
+ * Executes a Scenario: seeds the declared populations, then every user
+ * repeatedly draws an operation by weight and runs it.
+ *
+ * Operations: create/get/update/delete/list + Todo/Project/Category,
+ * filterTodos, linkTask, unlinkTask, getTasks, linkCategory, unlinkCategory.
+ * Operations that need an existing object take one at random out of the
+ * shared pools and put it back when the request is done, so no other user
+ * deletes it meanwhile; if none is free the draw is counted as skipped.
+ * Deleting an object also drops the links that mention it.
+ */
+public class ScenarioEngine {
+
+    /** Picks its inputs outside the measurement and returns the step to run, or null to skip. */
+    @FunctionalInterface
+    private interface Operation { Step prepare(SplittableRandom rnd); }
+
+    /**
+     * The request to time and the pool bookkeeping around it, which runs after
+     * the measurement: {@code done} once the request succeeded, then
+     * {@code release} whether or not it did.
+     */
+    private static final class Step {
+        private static final Runnable NOTHING = () -> {};
+
+        final Api.CheckedRunnable request;
+        final Runnable done;
+        final Runnable release;
+
+        Step(Api.CheckedRunnable request, Runnable done, Runnable release) {
+            this.request = request;
+            this.done = done;
+            this.release = release;
+        }
+
+        Step(Api.CheckedRunnable request) {
+            this(request, NOTHING, NOTHING);
+        }
+    }
+
+    /** Ids (or packed id pairs) shared between users; O(1) random pick and removal. */
+    private static class Pool {
+        private long[] items = new long[64];
+        private int size;
+
+        synchronized void add(long v) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = v;
+        }
+
+        synchronized long take(SplittableRandom rnd) {
+            if (size == 0) return -1;
+            int i = rnd.nextInt(size);
+            long v = items[i];
+            items[i] = items[--size];
+            return v;
+        }
+
+        /** Takes {@code v} out if it is there; linear, for the few draws that need a particular value. */
+        synchronized boolean remove(long v) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] != v) continue;
+                items[i] = items[--size];
+                return true;
+            }
+            return false;
+        }
+
+        /** For links: linking a pair twice still leaves one link to remove. */
+        synchronized void addIfAbsent(long v) {
+            for (int i = 0; i < size; i++) if (items[i] == v) return;
+            add(v);
+        }
+
+        synchronized void removeIf(LongPredicate p) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (p.test(items[i])) items[i] = items[--size];
+            }
+        }
+
+        synchronized long[] drain() {
+            long[] out = Arrays.copyOf(items, size);
+            size = 0;
+            return out;
+        }
+    }
+
+    private static final Map<String, String> COLLECTIONS = Map.of(
+            "Todo", "todos", "Project", "projects", "Category", "categories");
+
+    private final Scenario scenario;
+    private final Api api;
+    private final Map<String, Pool> pools = new HashMap<>();
+    private final Pool tasks = new Pool();        // project << 32 | todo
+    private final Pool todoCategories = new Pool(); // todo << 32 | category
+    private final Map<String, Operation> library = new HashMap<>();
+
+    private PerformanceMonitor merged;
+    private long elapsedNanos;
+    private final Map<String, Integer> skipped = new ConcurrentHashMap<>();
+
+    public ScenarioEngine(Scenario scenario, Api api) {
+        this.scenario = scenario;
+        this.api = api;
+        for (String collection : COLLECTIONS.values()) pools.put(collection, new Pool());
+        registerOperations();
+    }
+
+    // ---------- OPERATIONS ----------
+    private void registerOperations() {
+        COLLECTIONS.forEach((entity, collection) -> {
+            Pool pool = pools.get(collection);
+            String prefix = entity.toLowerCase();
+
+            library.put("create" + entity, rnd -> {
+                RequestBody body = Api.body(collection, prefix + "-mix-" + rnd.nextInt());
+                int[] id = new int[1];
+                return new Step(() -> id[0] = api.create(collection, body), () -> pool.add(id[0]), Step.NOTHING);
+            });
+            library.put("get" + entity, rnd -> {
+                long id = pool.take(rnd);
+                String path = "/" + collection + "/" + id;
+                return id < 0 ? null : holding(pool, id, new Step(() -> api.get(path)));
+            });
+            library.put("update" + entity, rnd -> {
+                long id = pool.take(rnd);
+                if (id < 0) return null;
+                RequestBody body = Api.updated(collection, (int) id);
+                return holding(pool, id, new Step(() -> api.update(collection, (int) id, body)));
+            });
+            library.put("delete" + entity, rnd -> {
+                long id = pool.take(rnd);
+                return id < 0 ? null : new Step(() -> api.delete(collection, (int) id),
+                        () -> forgetLinks(collection, id), Step.NOTHING);
+            });
+            String list = "/" + collection;
+            library.put("list" + (entity.equals("Category") ? "Categories" : entity + "s"), rnd ->
+                    new Step(() -> api.get(list)));
+        });
+
+        library.put("filterTodos", rnd -> new Step(() -> api.get("/todos?doneStatus=true")));
+
+        library.put("linkTask", rnd -> link(rnd, "projects", "tasks", "todos", tasks));
+        library.put("unlinkTask", rnd -> unlink(rnd, "projects", "tasks", "todos", tasks));
+        library.put("getTasks", rnd -> {
+            Pool projects = pools.get("projects");
+            long id = projects.take(rnd);
+            String path = "/projects/" + id + "/tasks";
+            return id < 0 ? null : holding(projects, id, new Step(() -> api.get(path)));
+        });
+        library.put("linkCategory", rnd -> link(rnd, "todos", "categories", "categories", todoCategories));
+        library.put("unlinkCategory", rnd -> unlink(rnd, "todos", "categories", "categories", todoCategories));
+    }
+
+    /** {@code step}, returning {@code id} to {@code pool} once it is over. */
+    private static Step holding(Pool pool, long id, Step step) {
+        return new Step(step.request, step.done, () -> {
+            step.release.run();
+            pool.add(id);
+        });
+    }
+
+    /** Drops every link that mentions a deleted {@code id} of {@code collection}. */
+    private void forgetLinks(String collection, long id) {
+        switch (collection) {
+            case "projects":
+                tasks.removeIf(pair -> pair >>> 32 == id);
+                break;
+            case "todos":
+                tasks.removeIf(pair -> (int) pair == id);
+                todoCategories.removeIf(pair -> pair >>> 32 == id);
+                break;
+            case "categories":
+                todoCategories.removeIf(pair -> (int) pair == id);
+                break;
+            default:
+                throw new IllegalArgumentException(collection);
+        }
+    }
+
+    private Step link(SplittableRandom rnd, String collection, String relation,
+                                     String targetCollection, Pool links) {
+        Pool owners = pools.get(collection), targets = pools.get(targetCollection);
+        long id = owners.take(rnd);
+        if (id < 0) return null;
+        long target = targets.take(rnd);
+        if (target < 0) {
+            owners.add(id);
+            return null;
+        }
+        return holding(owners, id, holding(targets, target, new Step(
+                () -> api.link(collection, (int) id, relation, (int) target),
+                () -> links.addIfAbsent(id << 32 | target), Step.NOTHING)));
+    }
+
+    private Step unlink(SplittableRandom rnd, String collection, String relation,
+                        String targetCollection, Pool links) {
+        Pool owners = pools.get(collection), targets = pools.get(targetCollection);
+        long pair = links.take(rnd);
+        if (pair < 0) return null;
+        long id = pair >>> 32, target = (int) pair;
+        // both ends must be free too, or a concurrent delete could remove the link first
+        if (!owners.remove(id)) {
+            links.add(pair);
+            return null;
+        }
+        if (!targets.remove(target)) {
+            owners.add(id);
+            links.add(pair);
+            return null;
+        }
+        return holding(owners, id, holding(targets, target,
+                new Step(() -> api.unlink(collection, (int) id, relation, (int) target))));
+    }
+
+    // ---------- EXECUTION ----------
+    public void run() throws Exception {
+        for (Scenario.Operation o : scenario.operations) {
+            if (!library.containsKey(o.op)) throw new IllegalArgumentException("Unknown operation: " + o.op);
+        }
+
+        seed();
+
+        double[] cumulative = new double[scenario.operations.size()];
+        double total = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] = total += scenario.operations.get(i).weight;
+        }
+
+        int users = scenario.users;
+        List<PerformanceMonitor> perUser = new ArrayList<>();
+        for (int u = 0; u < users; u++) perUser.add(new PerformanceMonitor());
+
+        long deadline = scenario.durationSeconds > 0
+                ? System.nanoTime() + TimeUnit.SECONDS.toNanos(scenario.durationSeconds)
+                : Long.MAX_VALUE;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = VirtualUsers.newExecutor(users);
+        List<Future<?>> futures = new ArrayList<>();
+        double sum = total;
+
+        try {
+            for (int u = 0; u < users; u++) {
+                final int user = u;
+                futures.add(pool.submit(() -> {
+                    SplittableRandom rnd = new SplittableRandom(429L + user);
+                    PerformanceMonitor monitor = perUser.get(user);
+                    start.await();
+                    for (int i = 0; scenario.durationSeconds > 0 ? System.nanoTime() < deadline
+                                                             : i < scenario.iterations; i++) {
+                        int pick = Arrays.binarySearch(cumulative, rnd.nextDouble() * sum);
+                        String op = scenario.operations.get(Math.min(pick < 0 ? -pick - 1 : pick,
+                                cumulative.length - 1)).op;
+
+                        Step step = library.get(op).prepare(rnd);
+                        if (step == null) {
+                            skipped.merge(op, 1, Integer::sum);
+                            continue;
+                        }
+                        long ns;
+                        try {
+                            ns = Api.measure(step.request);
+                            step.done.run();
+                        } finally {
+                            step.release.run();
+                        }
+                        monitor.record(op, users, ns);
+                    }
+                    return null;
+                }));
+            }
+
+            long t0 = System.nanoTime();
+            start.countDown();
+            for (Future<?> f : futures) f.get();
+            elapsedNanos = System.nanoTime() - t0;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        merged = new PerformanceMonitor();
+        for (PerformanceMonitor m : perUser) merged.merge(m);
+
+        cleanup();
+    }
+
+    private void seed() throws Exception {
+        for (String collection : COLLECTIONS.values()) {
+            Pool pool = pools.get(collection);
+            Api.parallel(scenario.seed(collection), i ->
+                    api.createAsync(collection, Api.body(collection, scenario.name + "-seed-" + i))
+                            .thenAccept(pool::add));
+        }
+    }
+
+    private void cleanup() throws Exception {
+        for (String collection : COLLECTIONS.values()) {
+            long[] ids = pools.get(collection).drain();
+            Api.parallel(ids.length, i -> api.deleteAsync(collection, (int) ids[i]));
+        }
+    }
+
+    // ---------- CSV OUTPUT ----------
+
+    /** One row per declared operation plus a total row; distributions go to the _latency.csv. */
+    public void writeCSV(String filename) {
+        double seconds = elapsedNanos / 1e9;
+        int users = scenario.users;
+        long totalOps = 0;
+        for (Scenario.Operation o : scenario.operations) totalOps += merged.histogram(o.op, users).count();
+
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path(filename)))) {
+
+            pw.println("op,weight,count,skipped,share,throughput_ops_s,p50_ms,p99_ms,max_ms");
+
+            LatencyHistogram all = new LatencyHistogram();
+            for (Scenario.Operation o : scenario.operations) {
+                LatencyHistogram h = merged.histogram(o.op, users);
+                all.merge(h);
+                printOp(pw, o.op, String.valueOf(o.weight), h, skipped.getOrDefault(o.op, 0),
+                        totalOps, seconds);
+            }
+            int allSkipped = skipped.values().stream().mapToInt(Integer::intValue).sum();
+            printOp(pw, "all", "", all, allSkipped, totalOps, seconds);
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        merged.writeLatencyCSV(filename.replace(".csv", "_latency.csv"));
+    }
+
+    private static void printOp(PrintWriter pw, String op, String weight, LatencyHistogram h,
+                                int skipped, long totalOps, double seconds) {
+        pw.printf(
+            "%s,%s,%d,%d,%.4f,%.2f,%.4f,%.4f,%.4f%n",
+            op, weight, h.count(), skipped,
+            totalOps == 0 ? 0 : (double) h.count() / totalOps, h.count() / seconds,
+            h.percentile(50) / 1e6, h.percentile(99) / 1e6, h.max() / 1e6
+        );
+    }
+}
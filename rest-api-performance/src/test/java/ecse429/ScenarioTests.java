@@ -0,0 +1,22 @@
+package ecse429;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the workload mix named by -Dperf.scenario (a JSON file path or a
+ * bundled scenario name; default production-mix).
+ */
+public class ScenarioTests {
+
+    private static final Api api = new Api();
+
+    @Test
+    public void scenarioPerformance() throws Exception {
+
+        Scenario scenario = Scenario.load(System.getProperty("perf.scenario", "production-mix"));
+        ScenarioEngine engine = new ScenarioEngine(scenario, api);
+
+        engine.run();
+        engine.writeCSV(scenario.name + "_scenario_metrics.csv");
+    }
+}
@@ -0,0 +1,186 @@
+package ecse429;
+
+import java.io.*;
+import java.net.*;
+import java.net.http.*;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts, restarts and stops the server under test for a SuiteRunner
+ * campaign.
+ *
+ * With -Dperf.server.jar=path the server jar is launched as a child process
+ * (java [perf.server.jvm] -jar path [perf.server.args]) and polled until
+ * GET perf.server.ready (default /todos) answers 2xx. Each launch records
+ * when the port first accepted a connection and when the first successful
+ * response came back, in server_startup.csv. The child's output goes to
+ * server.log next to it.
+ *
+ * With -Dperf.server.restart=true every suite after the first starts from a
+ * fresh server: a relaunched jar, or an emptied StandInServer with
+ * -Dperf.embedded. An external server (neither) is left alone.
+ */
+public final class ServerLifecycle {
+
+    private static final String JAR = System.getProperty("perf.server.jar");
+    private static final boolean RESTART = Boolean.getBoolean("perf.server.restart");
+    private static final String READY_PATH = System.getProperty("perf.server.ready", "/todos");
+    private static final long READY_TIMEOUT_MS = Long.getLong("perf.server.ready.timeout.ms", 60_000);
+    private static final long POLL_MS = Long.getLong("perf.server.ready.poll.ms", 10);
+
+    private static class Launch {
+        String suite;
+        long timestamp;
+        long pid;
+        double listenMs = -1, readyMs;
+        int probes;
+    }
+
+    private final List<Launch> launches = new ArrayList<>();
+    private final Path log;
+    private Process process;
+    private boolean warned;
+
+    /** @param log where a launched server's stdout and stderr are appended */
+    public ServerLifecycle(Path log) {
+        this.log = log;
+    }
+
+    // ---------- CAMPAIGN HOOKS ----------
+
+    /** Launches the server jar, if one is configured. */
+    public void begin(String suite) throws IOException, InterruptedException {
+        if (JAR != null) launch(suite);
+    }
+
+    /** Gives {@code suite} a fresh server if -Dperf.server.restart is set. */
+    public void beforeSuite(String suite) throws IOException, InterruptedException {
+        if (!RESTART) return;
+
+        if (JAR != null) {
+            stop();
+            launch(suite);
+        } else if (Boolean.getBoolean("perf.embedded")) {
+            StandInServer.shared().reset();
+        } else if (!warned) {
+            warned = true;
+            System.out.println("perf.server.restart: external server, not restarted (set perf.server.jar)");
+        }
+    }
+
+    /** Stops a launched server. */
+    public void end() {
+        stop();
+    }
+
+    // ---------- LAUNCH ----------
+
+    private void launch(String suite) throws IOException, InterruptedException {
+        URI base = URI.create(Target.base());
+        InetSocketAddress address = new InetSocketAddress(base.getHost(), base.getPort() == -1 ? 80 : base.getPort());
+        if (accepts(address)) {
+            throw new IllegalStateException("Something is already listening on " + address
+                    + "; stop it, or run without -Dperf.server.jar");
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(split(System.getProperty("perf.server.jvm", "")));
+        command.add("-jar");
+        command.add(JAR);
+        command.addAll(split(System.getProperty("perf.server.args", "")));
+
+        Files.createDirectories(log.toAbsolutePath().getParent());
+        Launch l = new Launch();
+        l.suite = suite;
+        l.timestamp = System.currentTimeMillis();
+
+        long start = System.nanoTime();
+        process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile()))
+                .start();
+        l.pid = process.pid();
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest probe = HttpRequest.newBuilder(base.resolve(READY_PATH)).timeout(Duration.ofSeconds(2)).GET().build();
+        long deadline = start + READY_TIMEOUT_MS * 1_000_000L;
+
+        while (true) {
+            if (!process.isAlive()) {
+                throw new IOException("Server exited with " + process.exitValue() + " before it was ready; see " + log);
+            }
+            if (System.nanoTime() > deadline) {
+                stop();
+                throw new IOException("Server not ready after " + READY_TIMEOUT_MS + "ms; see " + log);
+            }
+
+            if (l.listenMs < 0 && accepts(address)) l.listenMs = (System.nanoTime() - start) / 1e6;
+            if (l.listenMs >= 0) {
+                l.probes++;
+                try {
+                    int status = client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    if (status / 100 == 2) break;
+                } catch (IOException e) {
+                    // listening but not serving yet
+                }
+            }
+            Thread.sleep(POLL_MS);
+        }
+        l.readyMs = (System.nanoTime() - start) / 1e6;
+        launches.add(l);
+
+        // the server process is now known; spare ServerProcess the /proc scan
+        System.setProperty("perf.server.pid", String.valueOf(l.pid));
+        System.out.printf("Server pid %d listening after %.0fms, ready after %.0fms%n", l.pid, l.listenMs, l.readyMs);
+    }
+
+    private void stop() {
+        if (process == null) return;
+        process.destroy();
+        try {
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        process = null;
+        System.clearProperty("perf.server.pid");
+    }
+
+    private static boolean accepts(InetSocketAddress address) {
+        try (Socket s = new Socket()) {
+            s.connect(address, 200);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static List<String> split(String args) {
+        return args.isBlank() ? List.of() : Arrays.asList(args.trim().split("\\s+"));
+    }
+
+    // ---------- CSV OUTPUT ----------
+
+    /** One row per launch; nothing when no server was launched. */
+    public void writeCSV(String filename) {
+        if (launches.isEmpty()) return;
+
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path(filename)))) {
+            pw.println("timestamp,suite,jar,pid,listen_ms,ready_ms,probes");
+            String jar = Paths.get(JAR).getFileName().toString();
+            for (Launch l : launches) {
+                pw.printf("%d,%s,%s,%d,%.1f,%.1f,%d%n",
+                        l.timestamp, l.suite, jar, l.pid, l.listenMs, l.readyMs, l.probes);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package ecse429;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * The API server's own process, read from /proc/&lt;pid&gt;/ so its cost can be
+ * told apart from the rest of the machine (Linux only).
+ *
+ * The PID comes from -Dperf.server.pid, or is found from the port in
+ * Target.base(): the LISTEN socket for that port in /proc/net/tcp{,6} gives
+ * an inode, and the process holding "socket:[inode]" among its fds is the
+ * server. With -Dperf.embedded the server is this JVM, so its numbers
+ * include the harness as well.
+ */
+public final class ServerProcess {
+
+    /** Cumulative counters of the process at one instant. */
+    public static final class Snapshot {
+        public long nanoTime;
+        public double userSeconds, systemSeconds;
+        public long rssBytes;
+        public int threads, fds;
+        public long voluntaryCtx, involuntaryCtx;
+        public long ioBytes;                    // rchar + wchar, sockets included
+
+        public double cpuSeconds() { return userSeconds + systemSeconds; }
+    }
+
+    private static final double TICKS = clockTicks();
+    private static final String LISTEN = "0A";
+
+    private final long pid;
+
+    private ServerProcess(long pid) {
+        this.pid = pid;
+    }
+
+    public long pid() {
+        return pid;
+    }
+
+    /** The server behind Target.base(), or empty if it cannot be found or read. */
+    public static Optional<ServerProcess> find() {
+        Long given = Long.getLong("perf.server.pid");
+        if (given != null) return Optional.of(new ServerProcess(given));
+        if (Boolean.getBoolean("perf.embedded")) return Optional.of(new ServerProcess(ProcessHandle.current().pid()));
+        if (!Files.isReadable(Paths.get("/proc/net/tcp"))) return Optional.empty();
+
+        try {
+            int port = URI.create(Target.base()).getPort();
+            OptionalLong inode = listeningInode(port == -1 ? 80 : port);
+            if (inode.isEmpty()) return Optional.empty();
+            return owner(inode.getAsLong()).map(ServerProcess::new);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** Inode of the socket listening on {@code port}, from /proc/net/tcp and tcp6. */
+    static OptionalLong listeningInode(int port) throws IOException {
+        String hexPort = String.format(":%04X", port);
+        for (String table : new String[] {"/proc/net/tcp", "/proc/net/tcp6"}) {
+            Path path = Paths.get(table);
+            if (!Files.isReadable(path)) continue;
+
+            // sl local_address rem_address st tx:rx tr:when retrnsmt uid timeout inode ...
+            for (String line : Files.readAllLines(path)) {
+                String[] f = line.trim().split("\\s+");
+                if (f.length > 9 && f[1].endsWith(hexPort) && f[3].equals(LISTEN)) {
+                    return OptionalLong.of(Long.parseLong(f[9]));
+                }
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    /** PID of the process with an fd on socket {@code inode}. */
+    private static Optional<Long> owner(long inode) throws IOException {
+        String target = "socket:[" + inode + "]";
+        try (Stream<Path> procs = Files.list(Paths.get("/proc"))) {
+            return procs
+                    .filter(p -> p.getFileName().toString().chars().allMatch(Character::isDigit))
+                    .filter(p -> holds(p.resolve("fd"), target))
+                    .map(p -> Long.parseLong(p.getFileName().toString()))
+                    .findFirst();
+        }
+    }
+
+    private static boolean holds(Path fdDir, String target) {
+        try (Stream<Path> fds = Files.list(fdDir)) {
+            return fds.anyMatch(fd -> {
+                try {
+                    return Files.readSymbolicLink(fd).toString().equals(target);
+                } catch (IOException e) {
+                    return false;
+                }
+            });
+        } catch (IOException | SecurityException e) {
+            return false;   // someone else's process
+        }
+    }
+
+    // ---------- SAMPLING ----------
+
+    public Snapshot read() throws IOException {
+        Snapshot s = new Snapshot();
+        s.nanoTime = System.nanoTime();
+        Path proc = Paths.get("/proc", String.valueOf(pid));
+
+        // fields after the ")" that closes comm: utime is 14th, stime 15th overall
+        String stat = new String(Files.readAllBytes(proc.resolve("stat")));
+        String[] f = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        s.userSeconds = Long.parseLong(f[11]) / TICKS;
+        s.systemSeconds = Long.parseLong(f[12]) / TICKS;
+
+        for (String line : Files.readAllLines(proc.resolve("status"))) {
+            if (line.startsWith("VmRSS:")) s.rssBytes = number(line) * 1024;
+            else if (line.startsWith("Threads:")) s.threads = (int) number(line);
+        }
+
+        // the process status only counts the main thread's switches
+        try (Stream<Path> tasks = Files.list(proc.resolve("task"))) {
+            for (Path task : (Iterable<Path>) tasks::iterator) {
+                try {
+                    for (String line : Files.readAllLines(task.resolve("status"))) {
+                        if (line.startsWith("voluntary_ctxt_switches:")) s.voluntaryCtx += number(line);
+                        else if (line.startsWith("nonvoluntary_ctxt_switches:")) s.involuntaryCtx += number(line);
+                    }
+                } catch (IOException e) {
+                    // thread exited while listing
+                }
+            }
+        }
+
+        try (Stream<Path> fds = Files.list(proc.resolve("fd"))) {
+            s.fds = (int) fds.count();
+        } catch (IOException e) {
+            s.fds = -1;
+        }
+
+        try {
+            for (String line : Files.readAllLines(proc.resolve("io"))) {
+                if (line.startsWith("rchar:") || line.startsWith("wchar:")) s.ioBytes += number(line);
+            }
+        } catch (IOException e) {
+            s.ioBytes = -1;   // needs ptrace access on some kernels
+        }
+        return s;
+    }
+
+    private static long number(String line) {
+        return Long.parseLong(line.replaceAll("[^0-9]", ""));
+    }
+
+    private static double clockTicks() {
+        try {
+            Process p = new ProcessBuilder("getconf", "CLK_TCK").start();
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+                return Double.parseDouble(br.readLine().trim());
+            }
+        } catch (Exception e) {
+            return 100;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ecse429;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * What the server process spent per scale point: CPU-seconds, I/O bytes and
+ * context switches per request, and its RSS, threads and fds at the end.
+ * Requests are everything the Api sent in between, setup calls included.
+ * A no-op when the server process cannot be found (see ServerProcess).
+ */
+public class ServerUsage {
+
+    private static class Row {
+        int scale;
+        long requests;
+        ServerProcess.Snapshot from, to;
+    }
+
+    private final ServerProcess server;
+    private final List<Row> rows = new ArrayList<>();
+    private Row current;
+
+    public ServerUsage() {
+        this.server = ServerProcess.find().orElse(null);
+        if (server == null) System.out.println("Server process not found; no per-request server cost");
+    }
+
+    public void begin(int scale) {
+        if (server == null) return;
+        current = new Row();
+        current.scale = scale;
+        current.requests = -Api.requests();
+        current.from = snapshot();
+    }
+
+    public void end() {
+        if (server == null || current == null || current.from == null) return;
+        current.to = snapshot();
+        current.requests += Api.requests();
+        if (current.to != null) rows.add(current);
+        current = null;
+    }
+
+    private ServerProcess.Snapshot snapshot() {
+        try {
+            return server.read();
+        } catch (IOException e) {
+            return null;    // the process went away
+        }
+    }
+
+    // ---------- CSV OUTPUT ----------
+
+    public void writeCSV(String filename) {
+        if (server == null) return;
+
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path(filename)))) {
+
+            pw.println(
+                "scale,pid,requests,seconds,cpu_s,user_s,sys_s," +
+                "cpu_ms_per_req,io_bytes_per_req,vol_ctx_per_req,invol_ctx_per_req," +
+                "rss_mb,rss_delta_kb,threads,fds"
+            );
+
+            for (Row r : rows) {
+                double n = Math.max(1, r.requests);
+                double cpu = r.to.cpuSeconds() - r.from.cpuSeconds();
+                pw.printf(
+                    "%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.4f,%.1f,%.3f,%.3f,%.2f,%d,%d,%d%n",
+                    r.scale, server.pid(), r.requests, (r.to.nanoTime - r.from.nanoTime) / 1e9,
+
+                    cpu, r.to.userSeconds - r.from.userSeconds, r.to.systemSeconds - r.from.systemSeconds,
+
+                    1e3 * cpu / n,
+                    r.to.ioBytes < 0 ? -1.0 : (r.to.ioBytes - r.from.ioBytes) / n,
+                    (r.to.voluntaryCtx - r.from.voluntaryCtx) / n,
+                    (r.to.involuntaryCtx - r.from.involuntaryCtx) / n,
+
+                    r.to.rssBytes / (1024.0 * 1024.0), (r.to.rssBytes - r.from.rssBytes) / 1024,
+                    r.to.threads, r.to.fds
+                );
+            }
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
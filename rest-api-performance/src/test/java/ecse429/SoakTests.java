@@ -0,0 +1,194 @@
+package ecse429;
+
+import java.io.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Long-running create/update/delete cycles, enabled with -Dperf.soak=2h
+ * (also 30m, 90s). Collections are taken in turn from -Dperf.soak.mix
+ * (default todos); every instance is deleted again, so a server that frees
+ * what it deletes should not grow.
+ *
+ * The run is cut into -Dperf.soak.window windows (default 60s). Each gets
+ * its own latency histogram, written out and reset when the window closes,
+ * so the client holds one row per window and nothing per request. Between
+ * windows the server's RSS, threads and fds are read, and with -Dperf.gc
+ * its heap before and after a forced full collection (the live set).
+ *
+ * Once throughput is steady (CV of the last 5 windows at most 0.1, or from
+ * the second quarter of the run), lines are fitted to the live heap (RSS
+ * without the GC probe) against cycles, and to p99 against time. A leak is
+ * flagged when growth per cycle exceeds -Dperf.soak.leak.bytes (default 64)
+ * over both the whole fit and its second half; drift when p99 grows by more
+ * than -Dperf.soak.drift (default 0.1, i.e. 10%) of its mean per hour.
+ */
+@EnabledIfSystemProperty(named = "perf.soak", matches = ".+")
+public class SoakTests {
+
+    private static final long DURATION_S = seconds(System.getProperty("perf.soak", "0"));
+    private static final long WINDOW_S = seconds(System.getProperty("perf.soak.window", "60s"));
+    private static final String[] MIX = System.getProperty("perf.soak.mix", "todos").split(",");
+    private static final double LEAK_BYTES = Double.parseDouble(System.getProperty("perf.soak.leak.bytes", "64"));
+    private static final double DRIFT = Double.parseDouble(System.getProperty("perf.soak.drift", "0.1"));
+    private static final boolean FAIL = Boolean.getBoolean("perf.soak.fail");
+
+    private static final Api api = new Api();
+
+    private static class Window {
+        double elapsedS;
+        long cycles;            // cumulative at the end of the window
+        double opsPerSecond, p50Ms, p99Ms, maxMs;
+        double rssBytes = -1, heapBytes = -1, liveHeapBytes = -1, threads = -1, fds = -1;
+        boolean steady;
+    }
+
+    /** 90s, 30m, 2h; a bare number is seconds. */
+    static long seconds(String s) {
+        s = s.trim().toLowerCase();
+        long unit = s.endsWith("h") ? 3600 : s.endsWith("m") ? 60 : 1;
+        if (Character.isLetter(s.charAt(s.length() - 1))) s = s.substring(0, s.length() - 1);
+        return Long.parseLong(s) * unit;
+    }
+
+    @Test
+    public void soak() throws Exception {
+
+        ServerProcess server = ServerProcess.find().orElse(null);
+        GcProbe gc = GcProbe.shared();
+        if (server == null) System.out.println("Soak: server process not found, no RSS/threads/fds");
+        if (gc == null) System.out.println("Soak: no live heap without -Dperf.gc=true; leak check uses RSS");
+
+        List<Window> windows = new ArrayList<>();
+        SteadyState steady = new SteadyState(5, 0.1);
+        LatencyHistogram latency = new LatencyHistogram();
+
+        long start = System.nanoTime();
+        long end = start + DURATION_S * 1_000_000_000L;
+        long cycles = 0, windowStart = start;
+
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path("soak_windows.csv")))) {
+
+            pw.println("window,elapsed_s,cycles,ops_s,p50_ms,p99_ms,max_ms,"
+                    + "rss_mb,heap_mb,live_heap_mb,threads,fds,steady");
+
+            while (System.nanoTime() < end) {
+                String collection = MIX[(int) (cycles % MIX.length)].trim();
+                String title = "soak-" + cycles;
+                int[] id = new int[1];
+
+                latency.record(Api.measure(() -> id[0] = api.create(collection, Api.body(collection, title))));
+                latency.record(Api.measure(() -> api.update(collection, id[0], Api.updated(collection, id[0]))));
+                latency.record(Api.measure(() -> api.delete(collection, id[0])));
+                cycles++;
+
+                long now = System.nanoTime();
+                if (now - windowStart < WINDOW_S * 1_000_000_000L && now < end) continue;
+
+                // ---------- WINDOW ----------
+                Window w = new Window();
+                w.elapsedS = (now - start) / 1e9;
+                w.cycles = cycles;
+                w.opsPerSecond = latency.count() / ((now - windowStart) / 1e9);
+                w.p50Ms = latency.percentile(50) / 1e6;
+                w.p99Ms = latency.percentile(99) / 1e6;
+                w.maxMs = latency.max() / 1e6;
+
+                if (server != null) {
+                    ServerProcess.Snapshot snap = server.read();
+                    w.rssBytes = snap.rssBytes;
+                    w.threads = snap.threads;
+                    w.fds = snap.fds;
+                }
+                if (gc != null) {
+                    w.heapBytes = gc.heapUsedBytes();
+                    w.liveHeapBytes = gc.liveHeapBytes();
+                }
+                steady.add(w.opsPerSecond);
+                w.steady = steady.isSteady();
+                windows.add(w);
+
+                pw.printf("%d,%.1f,%d,%.2f,%.4f,%.4f,%.4f,%.2f,%.2f,%.2f,%.0f,%.0f,%b%n",
+                        windows.size(), w.elapsedS, w.cycles, w.opsPerSecond, w.p50Ms, w.p99Ms, w.maxMs,
+                        mb(w.rssBytes), mb(w.heapBytes), mb(w.liveHeapBytes), w.threads, w.fds, w.steady);
+                pw.flush();
+                System.out.printf("Soak %.0fs: %d cycles, %.1f ops/s, p99 %.3fms, live heap %.1fMB, rss %.1fMB%n",
+                        w.elapsedS, cycles, w.opsPerSecond, w.p99Ms, mb(w.liveHeapBytes), mb(w.rssBytes));
+
+                latency.reset();
+                windowStart = System.nanoTime();    // the sampling above is not part of the next window
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (!trend(windows) && FAIL) throw new IllegalStateException("Soak flagged a leak or p99 drift; see soak_trend.csv");
+    }
+
+    private static double mb(double bytes) {
+        return bytes < 0 ? -1 : bytes / (1024 * 1024);
+    }
+
+    // ---------- TREND ----------
+
+    /** Writes soak_trend.csv; false if anything was flagged. */
+    private static boolean trend(List<Window> windows) {
+        int n = windows.size();
+        int from = n;
+        for (int i = 0; i < n; i++) {
+            if (windows.get(i).steady) {
+                from = i;
+                break;
+            }
+        }
+        from = Math.min(from, n / 4);
+        int half = from + (n - from) / 2;
+
+        double[] cycles = new double[n], hours = new double[n];
+        double[] live = new double[n], rss = new double[n], p99 = new double[n], threads = new double[n], fds = new double[n];
+        double p99Sum = 0;
+        for (int i = 0; i < n; i++) {
+            Window w = windows.get(i);
+            cycles[i] = w.cycles;
+            hours[i] = w.elapsedS / 3600;
+            live[i] = w.liveHeapBytes;
+            rss[i] = w.rssBytes;
+            p99[i] = w.p99Ms;
+            threads[i] = w.threads;
+            fds[i] = w.fds;
+            if (i >= from) p99Sum += w.p99Ms;
+        }
+        double p99Mean = p99Sum / Math.max(1, n - from);
+        boolean heapKnown = n > 0 && windows.get(0).liveHeapBytes >= 0;
+
+        boolean ok = true;
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path("soak_trend.csv")))) {
+            pw.println("metric,unit,from_window,windows,slope,r2,second_half_slope,threshold,flagged");
+
+            ok &= row(pw, "live_heap", "bytes/cycle", cycles, live, from, half, n, heapKnown ? LEAK_BYTES : Double.NaN);
+            ok &= row(pw, "rss", "bytes/cycle", cycles, rss, from, half, n, heapKnown ? Double.NaN : LEAK_BYTES);
+            ok &= row(pw, "p99", "ms/hour", hours, p99, from, half, n, DRIFT * p99Mean);
+            row(pw, "threads", "per hour", hours, threads, from, half, n, Double.NaN);
+            row(pw, "fds", "per hour", hours, fds, from, half, n, Double.NaN);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return ok;
+    }
+
+    /** One fitted metric; flagged (returns false) when both slopes exceed a threshold that is not NaN. */
+    private static boolean row(PrintWriter pw, String metric, String unit, double[] x, double[] y,
+                               int from, int half, int n, double threshold) {
+        Trend all = Trend.fit(x, y, from, n);
+        Trend recent = Trend.fit(x, y, half, n);
+        boolean flagged = !Double.isNaN(threshold) && all.slope > threshold && recent.slope > threshold;
+
+        pw.printf("%s,%s,%d,%d,%.4f,%.3f,%.4f,%s,%b%n", metric, unit, from + 1, all.points,
+                all.slope, all.r2, recent.slope, Double.isNaN(threshold) ? "" : String.format("%.4f", threshold), flagged);
+        if (flagged) {
+            System.out.printf("Soak: %s grows %.2f %s (threshold %.2f)%n", metric, all.slope, unit, threshold);
+        }
+        return !flagged;
+    }
+}
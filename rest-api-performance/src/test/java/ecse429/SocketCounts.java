@@ -0,0 +1,118 @@
+package ecse429;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * TCP sockets to or from one port, by state, read from /proc/net/tcp and
+ * /proc/net/tcp6.
+ *
+ * A sampler thread polls every perf.sockets.ms (default 100) while a run is
+ * in progress and keeps the first, last and largest counts, so TIME_WAIT
+ * building up under new-connection-per-request shows even after the run.
+ * Both ends of a loopback connection have an entry; each is counted. Hosts
+ * without /proc report -1.
+ */
+public class SocketCounts {
+
+    public static final int ESTABLISHED = 0;
+    public static final int TIME_WAIT = 1;
+    public static final int CLOSE_WAIT = 2;
+    public static final int OTHER = 3;
+    public static final int STATES = 4;
+
+    private static final long INTERVAL_MS = Long.getLong("perf.sockets.ms", 100);
+    private static final String[] TABLES = { "/proc/net/tcp", "/proc/net/tcp6" };
+
+    private final int port;
+    private final int[] first = new int[STATES], last = new int[STATES], max = new int[STATES];
+    private Thread sampler;
+    private boolean sampled;
+
+    public SocketCounts(int port) {
+        this.port = port;
+    }
+
+    /** Sockets with {@code port} at either end right now, indexed by state; all -1 without /proc. */
+    public static int[] count(int port) {
+        int[] counts = new int[STATES];
+        boolean any = false;
+        for (String table : TABLES) {
+            Path path = Paths.get(table);
+            if (!Files.isReadable(path)) continue;
+            any = true;
+            try (BufferedReader in = Files.newBufferedReader(path)) {
+                in.readLine();      // header
+                for (String line; (line = in.readLine()) != null; ) {
+                    // sl local_address rem_address st ...; addresses are HEXIP:HEXPORT
+                    String[] f = line.trim().split("\\s+", 5);
+                    if (f.length < 4) continue;
+                    if (port(f[1]) != port && port(f[2]) != port) continue;
+                    counts[state(f[3])]++;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        if (!any) Arrays.fill(counts, -1);
+        return counts;
+    }
+
+    private static int port(String address) {
+        return Integer.parseInt(address.substring(address.indexOf(':') + 1), 16);
+    }
+
+    private static int state(String hex) {
+        switch (hex) {
+            case "01": return ESTABLISHED;
+            case "06": return TIME_WAIT;
+            case "08": return CLOSE_WAIT;
+            default: return OTHER;
+        }
+    }
+
+    // ---------- SAMPLING ----------
+
+    public void start() {
+        sample();
+        System.arraycopy(last, 0, first, 0, STATES);
+        sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                sample();
+            }
+        }, "socket-counts");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    public void stop() throws InterruptedException {
+        sampler.interrupt();
+        sampler.join();
+        sample();
+    }
+
+    private synchronized void sample() {
+        int[] now = count(port);
+        System.arraycopy(now, 0, last, 0, STATES);
+        for (int s = 0; s < STATES; s++) max[s] = sampled ? Math.max(max[s], now[s]) : now[s];
+        sampled = true;
+    }
+
+    public synchronized int first(int state) {
+        return first[state];
+    }
+
+    public synchronized int last(int state) {
+        return last[state];
+    }
+
+    public synchronized int max(int state) {
+        return max[state];
+    }
+}
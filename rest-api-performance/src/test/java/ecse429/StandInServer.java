@@ -0,0 +1,434 @@
+package ecse429;
+
+import com.google.gson.*;
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * In-process stand-in for the todo manager REST API.
+ *
+ * Implements /todos, /projects and /categories with the same payload shapes
+ * as the real server (string-valued fields, lists wrapped in an array named
+ * after the collection) plus the tasks/tasksof/categories/todos/projects
+ * relationship routes. Stores are concurrent maps, so the suites can run
+ * against it hermetically with -Dperf.embedded=true.
+ *
+ * Bodies are JSON unless the request's Content-Type is application/xml;
+ * responses are XML when Accept asks for application/xml ahead of JSON,
+ * with list items named after the singular of their list, as in
+ * {@code <todos><todo><id>1</id>...</todo></todos>}.
+ */
+public class StandInServer {
+
+    static {
+        // headers and body go out in separate writes; without this Nagle plus
+        // delayed ACKs adds ~40ms to every response. Read once by HttpServer.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        // past 200 idle keep-alive connections the server silently closes
+        // every new one after its first response; parallel seeding alone
+        // keeps perf.inflight connections pooled
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", "4096");
+        }
+    }
+
+    private static final int THREADS =
+            Integer.getInteger("perf.embedded.threads", Runtime.getRuntime().availableProcessors() * 4);
+
+    /** Collection name -> its fields (besides id) and its relationships. */
+    private static final Map<String, List<String>> FIELDS = Map.of(
+            "todos", List.of("title", "doneStatus", "description"),
+            "projects", List.of("title", "completed", "active", "description"),
+            "categories", List.of("title", "description"));
+
+    /** Relationship name -> target collection, per source collection. */
+    private static final Map<String, Map<String, String>> RELATIONS = Map.of(
+            "todos", Map.of("tasksof", "projects", "categories", "categories"),
+            "projects", Map.of("tasks", "todos", "categories", "categories"),
+            "categories", Map.of("todos", "todos", "projects", "projects"));
+
+    /** Relationships the real server keeps in both directions. */
+    private static final Map<String, String> INVERSE = Map.of("tasks", "tasksof", "tasksof", "tasks");
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "doneStatus", "false", "completed", "false", "active", "false", "description", "");
+
+    private static class Entity {
+        final int id;
+        final Map<String, String> fields = new ConcurrentHashMap<>();
+        final Map<String, Set<Integer>> links = new ConcurrentHashMap<>();
+
+        Entity(int id) { this.id = id; }
+
+        Set<Integer> links(String relation) {
+            return links.computeIfAbsent(relation, k -> ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    private static StandInServer shared;
+
+    /** JVM-wide instance on an ephemeral port, started on first use. */
+    public static synchronized StandInServer shared() throws IOException {
+        if (shared == null) {
+            shared = new StandInServer(0);
+            shared.start();
+        }
+        return shared;
+    }
+
+    private final HttpServer server;
+    private final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    private final Map<String, Map<Integer, Entity>> stores = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> ids = new ConcurrentHashMap<>();
+
+    public StandInServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        for (String collection : FIELDS.keySet()) {
+            stores.put(collection, new ConcurrentHashMap<>());
+            ids.put(collection, new AtomicInteger());
+            server.createContext("/" + collection, this::handle);
+        }
+        server.setExecutor(pool);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        pool.shutdownNow();
+    }
+
+    public String base() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /** Drops every instance and restarts ids at 1, as a fresh server would. */
+    public void reset() {
+        stores.values().forEach(Map::clear);
+        ids.values().forEach(id -> id.set(0));
+    }
+
+    /** Runs the stand-in as a separate process: java ecse429.StandInServer [port] */
+    public static void main(String[] args) throws IOException {
+        StandInServer s = new StandInServer(args.length > 0 ? Integer.parseInt(args[0]) : 4567);
+        s.start();
+        System.out.println("Stand-in server listening on " + s.base());
+    }
+
+    // ---------- ROUTING ----------
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            String[] path = ex.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+            String method = ex.getRequestMethod();
+            String collection = path[0];
+
+            // contexts match by prefix, so /todosX lands here too
+            if (!stores.containsKey(collection)) {
+                error(ex, 404, "Could not find an instance with " + ex.getRequestURI().getPath());
+                return;
+            }
+            if (path.length == 1) {
+                switch (method) {
+                    case "GET": case "HEAD": list(ex, collection); return;
+                    case "POST": create(ex, collection); return;
+                }
+            } else {
+                Entity e = find(collection, path[1]);
+                if (e == null) {
+                    error(ex, 404, "Could not find an instance with " + collection + "/" + path[1]);
+                    return;
+                }
+                if (path.length == 2) {
+                    switch (method) {
+                        case "GET": case "HEAD": respond(ex, 200, wrap(collection, List.of(e))); return;
+                        case "POST": case "PUT": amend(ex, collection, e, method.equals("PUT")); return;
+                        case "DELETE": delete(collection, e); respond(ex, 200, null); return;
+                    }
+                } else if (RELATIONS.get(collection).containsKey(path[2])) {
+                    String relation = path[2];
+                    if (path.length == 3) {
+                        switch (method) {
+                            case "GET": case "HEAD": related(ex, collection, e, relation); return;
+                            case "POST": link(ex, collection, e, relation); return;
+                        }
+                    } else if (path.length == 4 && method.equals("DELETE")) {
+                        unlink(ex, collection, e, relation, path[3]);
+                        return;
+                    }
+                }
+            }
+            error(ex, 405, "Unsupported " + method + " " + ex.getRequestURI().getPath());
+        } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+            error(ex, 400, "Invalid body: " + e.getMessage());
+        } finally {
+            ex.close();
+        }
+    }
+
+    // ---------- HANDLERS ----------
+    private void list(HttpExchange ex, String collection) throws IOException {
+        Map<String, String> filter = query(ex.getRequestURI().getRawQuery());
+        List<Entity> matches = new ArrayList<>();
+        for (Entity e : stores.get(collection).values()) {
+            boolean ok = true;
+            for (Map.Entry<String, String> f : filter.entrySet()) {
+                String v = f.getKey().equals("id") ? String.valueOf(e.id) : e.fields.get(f.getKey());
+                if (!f.getValue().equals(v)) { ok = false; break; }
+            }
+            if (ok) matches.add(e);
+        }
+        matches.sort(Comparator.comparingInt(e -> e.id));
+        respond(ex, 200, wrap(collection, matches));
+    }
+
+    private void create(HttpExchange ex, String collection) throws IOException {
+        JsonObject body = readBody(ex);
+        if (!validate(ex, collection, body)) return;
+
+        Entity e = new Entity(ids.get(collection).incrementAndGet());
+        for (String field : FIELDS.get(collection)) {
+            e.fields.put(field, DEFAULTS.getOrDefault(field, ""));
+        }
+        apply(e, body);
+        stores.get(collection).put(e.id, e);
+        respond(ex, 201, singular(collection), toJson(collection, e));
+    }
+
+    private void amend(HttpExchange ex, String collection, Entity e, boolean replace) throws IOException {
+        JsonObject body = readBody(ex);
+        if (!validate(ex, collection, body)) return;
+
+        if (replace) {
+            for (String field : FIELDS.get(collection)) {
+                e.fields.put(field, DEFAULTS.getOrDefault(field, ""));
+            }
+        }
+        apply(e, body);
+        respond(ex, 200, singular(collection), toJson(collection, e));
+    }
+
+    private void delete(String collection, Entity e) {
+        stores.get(collection).remove(e.id);
+        for (Map.Entry<String, Set<Integer>> rel : e.links.entrySet()) {
+            String inverse = INVERSE.get(rel.getKey());
+            if (inverse == null) continue;
+            Map<Integer, Entity> targets = stores.get(RELATIONS.get(collection).get(rel.getKey()));
+            for (int target : rel.getValue()) {
+                Entity t = targets.get(target);
+                if (t != null) t.links(inverse).remove(e.id);
+            }
+        }
+    }
+
+    private void related(HttpExchange ex, String collection, Entity e, String relation) throws IOException {
+        String targetCollection = RELATIONS.get(collection).get(relation);
+        Map<Integer, Entity> targets = stores.get(targetCollection);
+        List<Entity> out = new ArrayList<>();
+        for (int id : e.links(relation)) {
+            Entity t = targets.get(id);
+            if (t != null) out.add(t);
+        }
+        out.sort(Comparator.comparingInt(t -> t.id));
+        respond(ex, 200, wrap(targetCollection, out));
+    }
+
+    private void link(HttpExchange ex, String collection, Entity e, String relation) throws IOException {
+        JsonObject body = readBody(ex);
+        String targetCollection = RELATIONS.get(collection).get(relation);
+        Entity target = body.has("id") ? find(targetCollection, body.get("id").getAsString()) : null;
+        if (target == null) {
+            error(ex, 404, "Could not find thing matching value for id");
+            return;
+        }
+        e.links(relation).add(target.id);
+        String inverse = INVERSE.get(relation);
+        if (inverse != null) target.links(inverse).add(e.id);
+        respond(ex, 201, null);
+    }
+
+    private void unlink(HttpExchange ex, String collection, Entity e, String relation, String targetId)
+            throws IOException {
+        Entity target = find(RELATIONS.get(collection).get(relation), targetId);
+        if (target == null || !e.links(relation).remove(target.id)) {
+            error(ex, 404, "Could not find any instances with "
+                    + collection + "/" + e.id + "/" + relation + "/" + targetId);
+            return;
+        }
+        String inverse = INVERSE.get(relation);
+        if (inverse != null) target.links(inverse).remove(e.id);
+        respond(ex, 200, null);
+    }
+
+    // ---------- HELPERS ----------
+    private Entity find(String collection, String id) {
+        try {
+            return stores.get(collection).get(Integer.parseInt(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private boolean validate(HttpExchange ex, String collection, JsonObject body) throws IOException {
+        for (String key : body.keySet()) {
+            if (!key.equals("id") && !FIELDS.get(collection).contains(key)) {
+                error(ex, 400, "Could not find field: " + key);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void apply(Entity e, JsonObject body) {
+        for (Map.Entry<String, JsonElement> f : body.entrySet()) {
+            if (!f.getKey().equals("id")) e.fields.put(f.getKey(), f.getValue().getAsString());
+        }
+    }
+
+    private static JsonObject readBody(HttpExchange ex) throws IOException {
+        // left open: respond() drains it again, and reading a closed stream throws
+        String s = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        if (s.isBlank()) return new JsonObject();
+
+        String type = ex.getRequestHeaders().getFirst("Content-Type");
+        if (type == null || !type.contains("xml")) return JsonParser.parseString(s).getAsJsonObject();
+
+        // <todo><title>t</title>...</todo>: one string field per child element
+        JsonObject obj = new JsonObject();
+        for (Node c = PayloadFormat.parseXml(s).getFirstChild(); c != null; c = c.getNextSibling()) {
+            if (c.getNodeType() == Node.ELEMENT_NODE) obj.addProperty(((Element) c).getTagName(), c.getTextContent());
+        }
+        return obj;
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> out = new LinkedHashMap<>();
+        if (raw == null || raw.isEmpty()) return out;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) continue;
+            out.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+
+    private JsonObject toJson(String collection, Entity e) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("id", String.valueOf(e.id));
+        for (String field : FIELDS.get(collection)) obj.addProperty(field, e.fields.get(field));
+        for (Map.Entry<String, Set<Integer>> rel : e.links.entrySet()) {
+            if (rel.getValue().isEmpty()) continue;
+            JsonArray arr = new JsonArray();
+            for (int id : rel.getValue()) {
+                JsonObject ref = new JsonObject();
+                ref.addProperty("id", String.valueOf(id));
+                arr.add(ref);
+            }
+            obj.add(rel.getKey(), arr);
+        }
+        return obj;
+    }
+
+    private JsonObject wrap(String collection, List<Entity> entities) {
+        JsonArray arr = new JsonArray();
+        for (Entity e : entities) arr.add(toJson(collection, e));
+        JsonObject obj = new JsonObject();
+        obj.add(collection, arr);
+        return obj;
+    }
+
+    private static void error(HttpExchange ex, int status, String message) throws IOException {
+        JsonObject obj = new JsonObject();
+        JsonArray arr = new JsonArray();
+        arr.add(message);
+        obj.add("errorMessages", arr);
+        respond(ex, status, obj);
+    }
+
+    private static void respond(HttpExchange ex, int status, JsonObject body) throws IOException {
+        respond(ex, status, null, body);
+    }
+
+    /** {@code root} names a single instance's XML element; lists and errors carry their own. */
+    private static void respond(HttpExchange ex, int status, String root, JsonObject body) throws IOException {
+        boolean xml = acceptsXml(ex);
+        String text = body == null ? "" : xml ? toXml(root, body) : body.toString();
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+        // HttpServer drops the keep-alive connection after a body-less response
+        // unless the request stream has already been read to EOF
+        ex.getRequestBody().readAllBytes();
+
+        ex.getResponseHeaders().set("Content-Type", xml ? "application/xml" : "application/json");
+        if (ex.getRequestMethod().equals("HEAD")) {
+            ex.getResponseHeaders().set("Content-Length", String.valueOf(bytes.length));
+            ex.sendResponseHeaders(status, -1);
+            return;
+        }
+        ex.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    // ---------- XML ----------
+    private static boolean acceptsXml(HttpExchange ex) {
+        String accept = ex.getRequestHeaders().getFirst("Accept");
+        if (accept == null) return false;
+        int xml = accept.indexOf("application/xml");
+        int json = accept.indexOf("application/json");
+        return xml >= 0 && (json < 0 || xml < json);
+    }
+
+    private static String toXml(String root, JsonObject body) {
+        StringBuilder sb = new StringBuilder();
+        if (root != null) {
+            toXml(sb, root, body);
+        } else {
+            for (Map.Entry<String, JsonElement> f : body.entrySet()) toXml(sb, f.getKey(), f.getValue());
+        }
+        return sb.toString();
+    }
+
+    private static void toXml(StringBuilder sb, String name, JsonElement value) {
+        sb.append('<').append(name).append('>');
+        if (value.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> f : value.getAsJsonObject().entrySet()) {
+                toXml(sb, f.getKey(), f.getValue());
+            }
+        } else if (value.isJsonArray()) {
+            String item = singular(name);
+            for (JsonElement e : value.getAsJsonArray()) toXml(sb, item, e);
+        } else {
+            String s = value.getAsString();
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '&': sb.append("&amp;"); break;
+                    case '<': sb.append("&lt;"); break;
+                    case '>': sb.append("&gt;"); break;
+                    default: sb.append(c);
+                }
+            }
+        }
+        sb.append("</").append(name).append('>');
+    }
+
+    /** todos -> todo, categories -> category, errorMessages -> errorMessage */
+    private static String singular(String plural) {
+        if (plural.endsWith("ies")) return plural.substring(0, plural.length() - 3) + "y";
+        if (plural.endsWith("s")) return plural.substring(0, plural.length() - 1);
+        return plural;
+    }
+}
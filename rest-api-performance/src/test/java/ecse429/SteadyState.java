@@ -0,0 +1,41 @@
+package ecse429;
+
+/**
+ * Rolling coefficient of variation (stddev / mean) over the last
+ * {@code window} samples. Steady once the window is full and its CV is at or
+ * below the threshold.
+ */
+public class SteadyState {
+
+    private final double[] window;
+    private final double threshold;
+    private int size, next;
+
+    public SteadyState(int window, double threshold) {
+        this.window = new double[window];
+        this.threshold = threshold;
+    }
+
+    public void add(double sample) {
+        window[next] = sample;
+        next = (next + 1) % window.length;
+        if (size < window.length) size++;
+    }
+
+    /** CV of the samples in the window; NaN until it has two. */
+    public double cv() {
+        if (size < 2) return Double.NaN;
+
+        double mean = 0;
+        for (int i = 0; i < size; i++) mean += window[i];
+        mean /= size;
+
+        double sq = 0;
+        for (int i = 0; i < size; i++) sq += (window[i] - mean) * (window[i] - mean);
+        return Math.sqrt(sq / (size - 1)) / mean;
+    }
+
+    public boolean isSteady() {
+        return size == window.length && cv() <= threshold;
+    }
+}
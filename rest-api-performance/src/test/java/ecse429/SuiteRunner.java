@@ -0,0 +1,108 @@
+package ecse429;
+
+import org.junit.platform.engine.discovery.ClassNameFilter;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.launcher.*;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+import java.io.PrintWriter;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.junit.platform.engine.discovery.DiscoverySelectors.*;
+
+/**
+ * Runs a benchmark campaign: the suites one after another in a single JVM, so
+ * later suites see a warm JIT and no suite pays JVM startup.
+ *
+ *   SuiteRunner [Suite ...]   (default: every *Tests class in ecse429)
+ *
+ * Each suite writes its files to &lt;perf.csv.dir&gt;/&lt;Suite&gt;/ (default
+ * csv_files). ServerLifecycle can launch the server first and restart it
+ * between suites; its startup times go to server_startup.csv, and the
+ * -Dperf.calibration offset (if any) to calibration_offset.csv. Exits non-zero
+ * if any test failed.
+ */
+public class SuiteRunner {
+
+    private static final String ROOT = System.getProperty("perf.csv.dir", "csv_files");
+
+    public static void main(String[] args) throws Exception {
+        Launcher launcher = LauncherFactory.create();
+        List<String> suites = args.length > 0 ? Arrays.asList(args) : discover(launcher);
+
+        // before any suite runs, so a calibration file without this transport's row fails fast
+        System.setProperty("perf.out", ROOT);
+        Calibration.writeCSV("calibration_offset.csv");
+        System.clearProperty("perf.out");
+
+        long failed = 0;
+        long campaignStart = System.nanoTime();
+
+        ServerLifecycle server = new ServerLifecycle(Paths.get(ROOT, "server.log"));
+        try {
+            for (int i = 0; i < suites.size(); i++) {
+                failed += run(launcher, suites.get(i), server, i == 0);
+            }
+        } finally {
+            server.end();
+            System.setProperty("perf.out", ROOT);
+            server.writeCSV("server_startup.csv");
+            System.clearProperty("perf.out");
+        }
+
+        System.out.printf("Campaign: %d suites in %.1fs, %d failures, results under %s/%n",
+                suites.size(), (System.nanoTime() - campaignStart) / 1e9, failed, ROOT);
+
+        System.exit(failed > 0 ? 1 : 0);
+    }
+
+    /** Runs one suite class; returns its failure count. */
+    private static long run(Launcher launcher, String suite, ServerLifecycle server, boolean first) throws Exception {
+        String className = suite.contains(".") ? suite : "ecse429." + suite;
+        String name = className.substring(className.lastIndexOf('.') + 1);
+
+        if (first) server.begin(name);
+        else server.beforeSuite(name);
+
+        System.setProperty("perf.out", Paths.get(ROOT, name).toString());
+        System.out.printf("Running %s%n", name);
+
+        SummaryGeneratingListener listener = new SummaryGeneratingListener();
+        launcher.execute(LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClass(className))
+                .build(), listener);
+
+        TestExecutionSummary s = listener.getSummary();
+        if (s.getTotalFailureCount() > 0) s.printFailuresTo(new PrintWriter(System.out, true), 20);
+
+        System.out.printf(
+            "Finished %s: %d passed, %d failed, %d skipped in %.1fs%n%n",
+            name, s.getTestsSucceededCount(), s.getTotalFailureCount(),
+            s.getTestsSkippedCount() + s.getContainersSkippedCount(),
+            (s.getTimeFinished() - s.getTimeStarted()) / 1e3
+        );
+        return s.getTotalFailureCount();
+    }
+
+    private static List<String> discover(Launcher launcher) {
+        TestPlan plan = launcher.discover(LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectPackage("ecse429"))
+                .filters(ClassNameFilter.includeClassNamePatterns(".*Tests"))
+                .build());
+
+        List<String> suites = new ArrayList<>();
+        for (TestIdentifier root : plan.getRoots()) {
+            for (TestIdentifier child : plan.getChildren(root)) {
+                child.getSource()
+                        .filter(ClassSource.class::isInstance)
+                        .map(source -> ((ClassSource) source).getJavaClass().getSimpleName())
+                        .ifPresent(suites::add);
+            }
+        }
+        Collections.sort(suites);
+        return suites;
+    }
+}
@@ -0,0 +1,27 @@
+package ecse429;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Resolves the base URL the suites talk to.
+ *
+ * -Dperf.base=http://host:port points at an external server (default
+ * http://localhost:4567); -Dperf.embedded=true starts the in-process
+ * StandInServer instead, so no external process is needed.
+ */
+public final class Target {
+
+    private Target() {}
+
+    public static String base() {
+        if (Boolean.getBoolean("perf.embedded")) {
+            try {
+                return StandInServer.shared().base();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return System.getProperty("perf.base", "http://localhost:4567");
+    }
+}
@@ -1,115 +1,29 @@
 package ecse429;
 
-import com.google.gson.*;
 import org.junit.jupiter.api.Test;
-import java.net.URI;
-import java.net.http.*;
 
 public class TodoCategoriesTests {
 
-    private static final String BASE = "http://localhost:4567";
-    private static final HttpClient client = HttpClient.newHttpClient();
-    private static final int[] SCALES = {1, 5, 10, 50, 75, 100};
-
-    @FunctionalInterface interface CheckedRunnable { void run() throws Exception; }
-    private long measure(CheckedRunnable r) throws Exception {
-        long start = System.nanoTime(); r.run();
-        return (System.nanoTime() - start) / 1_000_000;
-    }
-
-    private String send(HttpRequest req) throws Exception {
-        return client.send(req, HttpResponse.BodyHandlers.ofString()).body();
-    }
-
-    private int extractId(String json) {
-        return JsonParser.parseString(json).getAsJsonObject().get("id").getAsInt();
-    }
-
-    private int createTodo(String title) throws Exception {
-        JsonObject obj = new JsonObject();
-        obj.addProperty("title", title);
-        obj.addProperty("doneStatus", false);
-        obj.addProperty("description", "perf");
-
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/todos"))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(obj.toString()))
-                .build();
-
-        return extractId(send(req));
-    }
-
-    private int createCategory(String title) throws Exception {
-        JsonObject obj = new JsonObject();
-        obj.addProperty("title", title);
-        obj.addProperty("description", "perf");
-
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/categories"))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(obj.toString()))
-                .build();
-
-        return extractId(send(req));
-    }
-
-    private void linkCategories(int todoId, int categoryId) throws Exception {
-        JsonObject obj = new JsonObject();
-        obj.addProperty("id", categoryId);
-
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/todos/" + todoId + "/categories"))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(obj.toString()))
-                .build();
-
-        send(req);
-    }
-
-    private void unlinkCategories(int todoId, int categoryId) throws Exception {
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/todos/" + todoId + "/categories/" + categoryId))
-                .DELETE()
-                .build();
-        send(req);
-    }
-
-    private void updateCategory(int categoryId) throws Exception {
-        JsonObject obj = new JsonObject();
-        obj.addProperty("title", "updated-category-" + categoryId);
-
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/categories/" + categoryId))
-                .header("Content-Type", "application/json")
-                .PUT(HttpRequest.BodyPublishers.ofString(obj.toString()))
-                .build();
-
-        send(req);
-    }
+    private static final Api api = new Api();
 
+    /** POST /todos/:id/categories, PUT /categories/:id, DELETE /todos/:id/categories/:id */
     @Test
     public void todoCategoriesPerformance() throws Exception {
 
-        PerformanceMonitor monitor = new PerformanceMonitor();
-
-        for (int scale : SCALES) {
-            for (int i = 0; i < scale; i++) {
-
-                int todo = createTodo("todo-cat-" + scale + "-" + i);
-                int category = createCategory("cat-" + scale + "-" + i);
+        ScaleLoop.run("todo_categories_metrics.csv", (scale, i, monitor) -> {
 
-                long addMs = measure(() -> linkCategories(todo, category));
-                monitor.recordAdd(scale, addMs);
+            int todo = api.create("todos", Api.todo("todo-cat-" + scale + "-" + i));
+            int category = api.create("categories", Api.category("cat-" + scale + "-" + i));
 
-                long updateMs = measure(() -> updateCategory(category));
-                monitor.recordUpdate(updateMs);
+            long addNs = Api.measure(() -> api.link("todos", todo, "categories", category));
+            monitor.recordAdd(scale, addNs);
 
-                long deleteMs = measure(() -> unlinkCategories(todo, category));
-                monitor.recordDelete(deleteMs);
-            }
-        }
+            long updateNs = Api.measure(() ->
+                    api.update("categories", category, Api.title("updated-category-" + category)));
+            monitor.recordUpdate(updateNs);
 
-        monitor.writeCSV("todo_categories_metrics.csv");
+            long deleteNs = Api.measure(() -> api.unlink("todos", todo, "categories", category));
+            monitor.recordDelete(deleteNs);
+        });
     }
 }
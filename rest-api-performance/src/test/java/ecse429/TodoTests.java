@@ -1,102 +1,92 @@
 package ecse429;
 
-import com.google.gson.*;
 import org.junit.jupiter.api.Test;
-import java.net.URI;
-import java.net.http.*;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class TodoTests {
 
-    private static final String BASE = "http://localhost:4567";
-    private static final HttpClient client = HttpClient.newHttpClient();
-    private static final int[] SCALES = {1, 5, 10, 50, 75, 100};
+    private static final Api api = new Api();
 
-    @FunctionalInterface
-    interface CheckedRunnable { void run() throws Exception; }
+    /** POST /todos, PUT /todos/:id, DELETE /todos/:id */
+    @Test
+    public void todoPerformance() throws Exception {
 
-    private long measure(CheckedRunnable r) throws Exception {
-        long start = System.nanoTime();
-        r.run();
-        return (System.nanoTime() - start) / 1_000_000; // ms
-    }
+        ScaleLoop.run("todo_metrics.csv", (scale, i, monitor) -> {
 
-    private String send(HttpRequest req) throws Exception {
-        return client.send(req, HttpResponse.BodyHandlers.ofString()).body();
-    }
+            // ---------- ADD ----------
+            int[] id = new int[1];
+            long addNs = Api.measure(() -> id[0] = api.create("todos", Api.todo("todo-" + scale + "-" + i)));
+            monitor.recordAdd(scale, addNs);
 
-    private int extractId(String json) {
-        return JsonParser.parseString(json)
-                .getAsJsonObject()
-                .get("id").getAsInt();
-    }
+            // ---------- UPDATE ----------
+            long updateNs = Api.measure(() -> api.update("todos", id[0], Api.updated("todos", id[0])));
+            monitor.recordUpdate(updateNs);
 
-    /** POST /todos */
-    private int createTodo(String title) throws Exception {
-        JsonObject obj = new JsonObject();
-        obj.addProperty("title", title);
-        obj.addProperty("doneStatus", false);
-        obj.addProperty("description", "perf-test");
+            // ---------- DELETE ----------
+            long deleteNs = Api.measure(() -> api.delete("todos", id[0]));
+            monitor.recordDelete(deleteNs);
+        });
+    }
 
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/todos"))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(obj.toString()))
-                .build();
+    /** Same cycle with N concurrent users, enabled with -Dperf.users=1,2,4,... */
+    @Test
+    @EnabledIfSystemProperty(named = "perf.users", matches = ".+")
+    public void todoConcurrentPerformance() throws Exception {
 
-        return extractId(send(req));
-    }
+        VirtualUsers load = new VirtualUsers();
 
-    /** PUT /todos/:id */
-    private void updateTodo(int id) throws Exception {
-        JsonObject obj = new JsonObject();
-        obj.addProperty("title", "updated-todo-" + id);
-        obj.addProperty("doneStatus", true);
-        obj.addProperty("description", "updated-desc");
+        for (int users : VirtualUsers.userCounts()) {
+            load.run(users, (user, i, monitor) -> {
+                int[] id = new int[1];
 
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/todos/" + id))
-                .header("Content-Type", "application/json")
-                .PUT(HttpRequest.BodyPublishers.ofString(obj.toString()))
-                .build();
+                long addNs = Api.measure(() ->
+                        id[0] = api.create("todos", Api.todo("todo-vu-" + users + "-" + user + "-" + i)));
+                monitor.recordAdd(users, addNs);
 
-        send(req);
-    }
+                long updateNs = Api.measure(() -> api.update("todos", id[0], Api.updated("todos", id[0])));
+                monitor.recordUpdate(updateNs);
 
-    /** DELETE /todos/:id */
-    private void deleteTodo(int id) throws Exception {
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/todos/" + id))
-                .DELETE()
-                .build();
+                long deleteNs = Api.measure(() -> api.delete("todos", id[0]));
+                monitor.recordDelete(deleteNs);
+            });
+        }
 
-        send(req);
+        load.writeCSV("todo_concurrency_metrics.csv");
     }
 
+    /** POST /todos at fixed arrival rates, enabled with -Dperf.rate=100,500,... */
     @Test
-    public void todoPerformance() throws Exception {
-
-        PerformanceMonitor monitor = new PerformanceMonitor();
-
-        for (int scale : SCALES) {
-            for (int i = 0; i < scale; i++) {
-
-                final int index = i;   // <-- FIXED HERE
-
-                // ---------- ADD ----------
-                long addMs = measure(() -> createTodo("todo-" + scale + "-" + index));
-                int id = createTodo("todo-perf-" + scale + "-" + index);
-                monitor.recordAdd(scale, addMs);
-
-                // ---------- UPDATE ----------
-                long updateMs = measure(() -> updateTodo(id));
-                monitor.recordUpdate(updateMs);
-
-                // ---------- DELETE ----------
-                long deleteMs = measure(() -> deleteTodo(id));
-                monitor.recordDelete(deleteMs);
+    @EnabledIfSystemProperty(named = "perf.rate", matches = ".+")
+    public void todoOpenLoopPerformance() throws Exception {
+
+        OpenLoop load = new OpenLoop("add");
+        Queue<Integer> created = new ConcurrentLinkedQueue<>();
+        AtomicBoolean over = new AtomicBoolean();
+
+        try {
+            for (int rate : OpenLoop.rates()) {
+                load.run(rate, i -> api.createAsync("todos", Api.todo("todo-ol-" + rate + "-" + i))
+                        .thenAccept(id -> {
+                            created.add(id);
+                            // still in flight when the last drain timed out: clean up after ourselves
+                            if (over.get()) deleteAll(created);
+                        }));
+
+                // cleanup is not part of the schedule
+                for (Integer id; (id = created.poll()) != null; ) api.delete("todos", id);
             }
+        } finally {
+            over.set(true);
+            deleteAll(created);
         }
 
-        monitor.writeCSV("todo_metrics.csv");
+        load.writeCSV("todo_openloop_metrics.csv");
+    }
+
+    private static void deleteAll(Queue<Integer> created) {
+        for (Integer id; (id = created.poll()) != null; ) api.deleteAsync("todos", id);
     }
 }
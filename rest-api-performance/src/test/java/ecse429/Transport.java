@@ -0,0 +1,65 @@
+package ecse429;
+
+import java.net.http.HttpClient;
+
+/**
+ * How Api talks to the server (-Dperf.transport, default "default").
+ *
+ *   default  java.net.http with its defaults (HTTP/2 preferred, so it offers
+ *            an h2c upgrade and stays on HTTP/1.1 if the server declines)
+ *   pooled   PhasedClient, HTTP/1.1 keep-alive connections reused from a pool
+ *            of at most -Dperf.pool.size (default unbounded)
+ *   fresh    PhasedClient, a new connection per request (Connection: close)
+ *   h2c      java.net.http pinned to HTTP/2: cleartext upgrade when the
+ *            server supports it
+ *
+ * Synchronous calls go through PhasedClient for pooled and fresh, so they
+ * also report RequestPhases; -Dperf.phases=true is the same as pooled.
+ * Asynchronous calls always use java.net.http.
+ */
+public enum Transport {
+    DEFAULT, POOLED, FRESH, H2C;
+
+    private static final int POOL_SIZE = Integer.getInteger("perf.pool.size", Integer.MAX_VALUE);
+
+    public static Transport fromProperties() {
+        String mode = System.getProperty("perf.transport");
+        if (mode == null) return Boolean.getBoolean("perf.phases") ? POOLED : DEFAULT;
+        return parse(mode);
+    }
+
+    /** -Dperf.pool.size, Integer.MAX_VALUE when unbounded. */
+    public static int poolSize() {
+        return POOL_SIZE;
+    }
+
+    public static Transport parse(String mode) {
+        return valueOf(mode.trim().toUpperCase());
+    }
+
+    public HttpClient httpClient() {
+        switch (this) {
+            case POOLED:
+            case FRESH:
+                return HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            case H2C:
+                return HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+            default:
+                return HttpClient.newHttpClient();
+        }
+    }
+
+    /** The synchronous client for this mode, or null when java.net.http does it all. */
+    public PhasedClient phasedClient(String base) {
+        switch (this) {
+            case POOLED: return new PhasedClient(base, true, POOL_SIZE);
+            case FRESH: return new PhasedClient(base, false, POOL_SIZE);
+            default: return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase();
+    }
+}
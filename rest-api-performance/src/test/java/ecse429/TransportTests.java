@@ -0,0 +1,83 @@
+package ecse429;
+
+import java.io.*;
+import java.net.URI;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * The todo create/update/delete cycle over each transport in
+ * -Dperf.transports=pooled,fresh,h2c,default, at every -Dperf.users level
+ * (default 1,2,4,8,16,32). Cap the pooled connections with -Dperf.pool.size.
+ *
+ * Each mode gets its own Api, its usual VirtualUsers CSV
+ * (todo_transport_MODE.csv) and one summary row per level with throughput,
+ * latency and the server port's sockets by state (see SocketCounts).
+ */
+@EnabledIfSystemProperty(named = "perf.transports", matches = ".+")
+public class TransportTests {
+
+    private static final String TRANSPORTS = System.getProperty("perf.transports", "");
+
+    @Test
+    public void todoTransports() throws Exception {
+
+        URI base = URI.create(Target.base());
+        int port = base.getPort() == -1 ? 80 : base.getPort();
+
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path("transport_summary.csv")))) {
+            pw.println("transport,protocol,pool_size,users,throughput_ops_s,p50_ms,p99_ms,"
+                    + "established_max,time_wait_start,time_wait_end,time_wait_max,close_wait_max");
+
+            for (String name : TRANSPORTS.split(",")) {
+                Transport transport = Transport.parse(name);
+                Api api = new Api(base.toString(), transport);
+                String protocol = api.protocol();
+                VirtualUsers load = new VirtualUsers();
+
+                for (int users : VirtualUsers.userCounts()) {
+                    SocketCounts sockets = new SocketCounts(port);
+                    sockets.start();
+                    try {
+                        load.run(users, (user, i, monitor) -> {
+                            int[] id = new int[1];
+
+                            long addNs = Api.measure(() -> id[0] = api.create("todos",
+                                    Api.todo("todo-" + transport + "-" + users + "-" + user + "-" + i)));
+                            monitor.recordAdd(users, addNs);
+
+                            long updateNs = Api.measure(() -> api.update("todos", id[0], Api.updated("todos", id[0])));
+                            monitor.recordUpdate(updateNs);
+
+                            long deleteNs = Api.measure(() -> api.delete("todos", id[0]));
+                            monitor.recordDelete(deleteNs);
+                        });
+                    } finally {
+                        sockets.stop();
+                    }
+
+                    LatencyHistogram h = load.lastLatency();
+                    pw.printf("%s,%s,%s,%d,%.2f,%.4f,%.4f,%d,%d,%d,%d,%d%n",
+                            transport, protocol, poolSize(transport), users, load.lastThroughput(),
+                            h.percentile(50) / 1e6, h.percentile(99) / 1e6,
+                            sockets.max(SocketCounts.ESTABLISHED),
+                            sockets.first(SocketCounts.TIME_WAIT), sockets.last(SocketCounts.TIME_WAIT),
+                            sockets.max(SocketCounts.TIME_WAIT), sockets.max(SocketCounts.CLOSE_WAIT));
+                    pw.flush();
+                    System.out.printf("%s (%s): time_wait %d -> %d%n", transport, protocol,
+                            sockets.first(SocketCounts.TIME_WAIT), sockets.last(SocketCounts.TIME_WAIT));
+                }
+
+                load.writeCSV("todo_transport_" + transport + ".csv");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String poolSize(Transport transport) {
+        if (transport != Transport.POOLED && transport != Transport.FRESH) return "";
+        int size = Transport.poolSize();
+        return size == Integer.MAX_VALUE ? "unbounded" : String.valueOf(size);
+    }
+}
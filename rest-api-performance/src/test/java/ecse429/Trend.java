@@ -0,0 +1,44 @@
+package ecse429;
+
+/**
+ * Least-squares line through (x, y) points: slope, intercept and R^2.
+ * Slope is NaN with fewer than two distinct x values.
+ */
+public class Trend {
+
+    public final double slope, intercept, r2;
+    public final int points;
+
+    private Trend(double slope, double intercept, double r2, int points) {
+        this.slope = slope;
+        this.intercept = intercept;
+        this.r2 = r2;
+        this.points = points;
+    }
+
+    /** Fits y[from..to) against x[from..to); negative y values (unknown) are skipped. */
+    public static Trend fit(double[] x, double[] y, int from, int to) {
+        int n = 0;
+        double sx = 0, sy = 0;
+        for (int i = from; i < to; i++) {
+            if (y[i] < 0) continue;
+            n++;
+            sx += x[i];
+            sy += y[i];
+        }
+        if (n < 2) return new Trend(Double.NaN, Double.NaN, Double.NaN, n);
+
+        double mx = sx / n, my = sy / n, sxx = 0, sxy = 0, syy = 0;
+        for (int i = from; i < to; i++) {
+            if (y[i] < 0) continue;
+            sxx += (x[i] - mx) * (x[i] - mx);
+            sxy += (x[i] - mx) * (y[i] - my);
+            syy += (y[i] - my) * (y[i] - my);
+        }
+        if (sxx == 0) return new Trend(Double.NaN, Double.NaN, Double.NaN, n);
+
+        double slope = sxy / sxx;
+        double r2 = syy == 0 ? 1 : sxy * sxy / (sxx * syy);
+        return new Trend(slope, my - slope * mx, r2, n);
+    }
+}
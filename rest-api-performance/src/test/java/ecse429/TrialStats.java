@@ -0,0 +1,161 @@
+package ecse429;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Per-scale add/update/delete samples across repeated trials, with means,
+ * medians and bootstrap confidence intervals of the mean.
+ *
+ * The interval resamples the per-trial means, not single iterations:
+ * iterations within a trial share its server and JIT state, so treating
+ * them as independent would narrow the interval while the trials still
+ * disagree. It needs two trials (NaN before), and convergence needs
+ * MIN_TRIALS. -Dperf.ci=0.95 sets the confidence level and
+ * -Dperf.bootstrap=2000 the number of resamples. Resampling uses a fixed
+ * seed, so the same samples always give the same interval.
+ */
+public class TrialStats {
+
+    public static final String[] OPS = {"add", "update", "delete"};
+
+    private static final double CONFIDENCE = Double.parseDouble(System.getProperty("perf.ci", "0.95"));
+    private static final int RESAMPLES = Integer.getInteger("perf.bootstrap", 2000);
+
+    // two trial means always give an interval; a few more before trusting it
+    private static final int MIN_TRIALS = 3;
+
+    private static class Samples {
+        double[] values = new double[16];
+        int size;
+
+        // sum and count of each trial, for the interval and the spread between trials
+        List<double[]> trials = new ArrayList<>();
+
+        void add(int trial, double v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+
+            while (trials.size() <= trial) trials.add(new double[2]);
+            trials.get(trial)[0] += v;
+            trials.get(trial)[1]++;
+        }
+    }
+
+    // scale -> one Samples per entry of OPS
+    private final Map<Integer, Samples[]> byScale = new TreeMap<>();
+
+    /** {@code ms} holds one iteration's add, update and delete latency. */
+    public void add(int scale, int trial, double[] ms) {
+        Samples[] s = byScale.computeIfAbsent(scale, k -> {
+            Samples[] fresh = new Samples[OPS.length];
+            for (int o = 0; o < OPS.length; o++) fresh[o] = new Samples();
+            return fresh;
+        });
+        for (int o = 0; o < OPS.length; o++) s[o].add(trial, ms[o]);
+    }
+
+    /**
+     * True once every op's CI half-width at {@code scale} is within
+     * {@code target} of its mean (0.05 = +/-5%).
+     */
+    public boolean converged(int scale, double target) {
+        Samples[] s = byScale.get(scale);
+        if (s == null) return false;
+        for (Samples samples : s) {
+            if (samples.trials.size() < MIN_TRIALS || !(halfWidth(samples) <= target)) return false;
+        }
+        return true;
+    }
+
+    // ---------- STATISTICS ----------
+
+    private static double mean(double[] v, int n) {
+        double sum = 0;
+        for (int i = 0; i < n; i++) sum += v[i];
+        return sum / n;
+    }
+
+    private static double median(double[] v, int n) {
+        double[] sorted = Arrays.copyOf(v, n);
+        Arrays.sort(sorted);
+        return n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+    }
+
+    /** Percentile bootstrap CI of the mean of {@code v[0..n)}: {low, high}, NaN below two values. */
+    static double[] bootstrapMeanCI(double[] v, int n) {
+        if (n < 2) return new double[] {Double.NaN, Double.NaN};
+
+        SplittableRandom rnd = new SplittableRandom(42);
+        double[] means = new double[RESAMPLES];
+        for (int r = 0; r < RESAMPLES; r++) {
+            double sum = 0;
+            for (int i = 0; i < n; i++) sum += v[rnd.nextInt(n)];
+            means[r] = sum / n;
+        }
+        Arrays.sort(means);
+
+        double tail = (1 - CONFIDENCE) / 2;
+        int lo = (int) Math.floor(tail * (RESAMPLES - 1));
+        int hi = (int) Math.ceil((1 - tail) * (RESAMPLES - 1));
+        return new double[] {means[lo], means[hi]};
+    }
+
+    private static double[] trialMeans(Samples s) {
+        int k = s.trials.size();
+        double[] means = new double[k];
+        for (int t = 0; t < k; t++) means[t] = s.trials.get(t)[0] / s.trials.get(t)[1];
+        return means;
+    }
+
+    /** CI of the mean over the per-trial means; NaN for a single trial. */
+    private static double[] trialCI(Samples s) {
+        return bootstrapMeanCI(trialMeans(s), s.trials.size());
+    }
+
+    /** CI half-width relative to the mean; NaN until there are two trials. */
+    private static double halfWidth(Samples s) {
+        double[] ci = trialCI(s);
+        return (ci[1] - ci[0]) / 2 / mean(s.values, s.size);
+    }
+
+    /** Standard deviation of the per-trial means; NaN for a single trial. */
+    private static double trialSd(Samples s) {
+        int k = s.trials.size();
+        if (k < 2) return Double.NaN;
+
+        double[] means = trialMeans(s);
+        double m = mean(means, k);
+
+        double sq = 0;
+        for (double x : means) sq += (x - m) * (x - m);
+        return Math.sqrt(sq / (k - 1));
+    }
+
+    // ---------- CSV OUTPUT ----------
+
+    /** One row per op and scale. */
+    public void writeCSV(String filename) {
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path(filename)))) {
+
+            pw.println("op,scale,trials,samples,mean_ms,median_ms,ci_low_ms,ci_high_ms,ci_half_pct,trial_sd_ms");
+
+            for (int o = 0; o < OPS.length; o++) {
+                for (Map.Entry<Integer, Samples[]> e : byScale.entrySet()) {
+                    Samples s = e.getValue()[o];
+                    double mean = mean(s.values, s.size);
+                    double[] ci = trialCI(s);
+                    pw.printf(
+                        "%s,%d,%d,%d,%.4f,%.4f,%.4f,%.4f,%.2f,%.4f%n",
+                        OPS[o], e.getKey(), s.trials.size(), s.size,
+                        mean, median(s.values, s.size),
+                        ci[0], ci[1], 100 * (ci[1] - ci[0]) / 2 / mean, trialSd(s)
+                    );
+                }
+            }
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ecse429;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Closed-loop concurrent load: N users each run the same cycle back to back.
+ *
+ * Users run on virtual threads when the JVM has them (Java 21+) and on a
+ * fixed platform pool otherwise, so the build can stay on Java 17. Every user
+ * records into its own PerformanceMonitor; they are merged per level.
+ */
+public class VirtualUsers {
+
+    /** One create/update/delete round for a single user. */
+    @FunctionalInterface
+    public interface Cycle { void run(int user, int iteration, PerformanceMonitor monitor) throws Exception; }
+
+    private static final String USERS = System.getProperty("perf.users", "1,2,4,8,16,32");
+    private static final int ITERATIONS = Integer.getInteger("perf.iterations", 50);
+
+    private static class Level {
+        int users;
+        long elapsedNanos;
+        List<PerformanceMonitor> perUser = new ArrayList<>();
+        PerformanceMonitor merged = new PerformanceMonitor();
+    }
+
+    private final List<Level> levels = new ArrayList<>();
+
+    /** User counts to sweep, from -Dperf.users=1,2,4,... */
+    public static int[] userCounts() {
+        return Arrays.stream(USERS.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    }
+
+    static ExecutorService newExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    // ---------- EXECUTION ----------
+
+    /** Runs {@code users} concurrent users for perf.iterations cycles each. */
+    public void run(int users, Cycle cycle) throws Exception {
+        Level level = new Level();
+        level.users = users;
+        for (int u = 0; u < users; u++) level.perUser.add(new PerformanceMonitor());
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = newExecutor(users);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int u = 0; u < users; u++) {
+                final int user = u;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    PerformanceMonitor monitor = level.perUser.get(user);
+                    for (int i = 0; i < ITERATIONS; i++) cycle.run(user, i, monitor);
+                    return null;
+                }));
+            }
+
+            long t0 = System.nanoTime();
+            start.countDown();
+            for (Future<?> f : futures) f.get();
+            level.elapsedNanos = System.nanoTime() - t0;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (PerformanceMonitor m : level.perUser) level.merged.merge(m);
+        levels.add(level);
+
+        System.out.printf("users=%d throughput=%.1f ops/s%n",
+                users, ops(level.merged, users) / (level.elapsedNanos / 1e9));
+    }
+
+    /** Aggregate ops/s of the last run() level. */
+    double lastThroughput() {
+        Level level = levels.get(levels.size() - 1);
+        return ops(level.merged, level.users) / (level.elapsedNanos / 1e9);
+    }
+
+    /** All ops of the last run() level, merged into one distribution. */
+    LatencyHistogram lastLatency() {
+        Level level = levels.get(levels.size() - 1);
+        return allOps(level.merged, level.users);
+    }
+
+    private static long ops(PerformanceMonitor m, int scale) {
+        long n = 0;
+        for (String op : m.ops()) n += m.histogram(op, scale).count();
+        return n;
+    }
+
+    private static LatencyHistogram allOps(PerformanceMonitor m, int scale) {
+        LatencyHistogram h = new LatencyHistogram();
+        for (String op : m.ops()) h.merge(m.histogram(op, scale));
+        return h;
+    }
+
+    // ---------- CSV OUTPUT ----------
+
+    /**
+     * One row per user per level plus an "all" row with aggregate throughput.
+     * Per-op distributions for each level go to the matching _latency.csv.
+     */
+    public void writeCSV(String filename) {
+        PerformanceMonitor latency = new PerformanceMonitor();
+
+        try (PrintWriter pw = new PrintWriter(new FileWriter(Output.path(filename)))) {
+
+            pw.println("users,user,ops,elapsed_ms,throughput_ops_s,p50_ms,p99_ms,max_ms");
+
+            for (Level level : levels) {
+                double seconds = level.elapsedNanos / 1e9;
+                for (int u = 0; u < level.users; u++) {
+                    PerformanceMonitor m = level.perUser.get(u);
+                    printLevel(pw, level.users, String.valueOf(u), ops(m, level.users),
+                            seconds, allOps(m, level.users));
+                }
+                printLevel(pw, level.users, "all", ops(level.merged, level.users),
+                        seconds, allOps(level.merged, level.users));
+                latency.merge(level.merged);
+            }
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        latency.writeLatencyCSV(filename.replace(".csv", "_latency.csv"));
+    }
+
+    private static void printLevel(PrintWriter pw, int users, String user, long ops,
+                                   double seconds, LatencyHistogram h) {
+        pw.printf(
+            "%d,%s,%d,%.2f,%.2f,%.4f,%.4f,%.4f%n",
+            users, user, ops, seconds * 1e3, ops / seconds,
+            h.percentile(50) / 1e6, h.percentile(99) / 1e6, h.max() / 1e6
+        );
+    }
+}
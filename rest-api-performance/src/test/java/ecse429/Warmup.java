@@ -0,0 +1,70 @@
+package ecse429;
+
+import java.util.Arrays;
+
+/**
+ * Warmup before a measured run. Repeats the suite's iteration until the
+ * connection pool, the JIT on both sides and the server's caches have
+ * settled, so the first measured rows are not cold-start outliers.
+ *
+ * Iteration latencies are taken in blocks of perf.warmup.block (default 5)
+ * and each block contributes its median, so a single scheduler hiccup does
+ * not hold warmup open. Warmup ends once at least perf.warmup.iterations
+ * iterations (default 20) and perf.warmup.seconds (default 0) have passed and
+ * the CV of the last perf.warmup.window block medians (default 8) is at most
+ * perf.warmup.cv (default 0.25), or after perf.warmup.max iterations
+ * (default 500) regardless. -Dperf.warmup=false skips it.
+ *
+ * Warmup rows are recorded at scale 0 into their own &lt;name&gt;_warmup.csv,
+ * so cold-start cost can still be reported.
+ */
+public final class Warmup {
+
+    private static final boolean ENABLED = !"false".equals(System.getProperty("perf.warmup"));
+    private static final int MIN_ITERATIONS = Integer.getInteger("perf.warmup.iterations", 20);
+    private static final long MIN_SECONDS = Long.getLong("perf.warmup.seconds", 0);
+    private static final int MAX_ITERATIONS = Integer.getInteger("perf.warmup.max", 500);
+    private static final int BLOCK = Integer.getInteger("perf.warmup.block", 5);
+    private static final int WINDOW = Integer.getInteger("perf.warmup.window", 8);
+    private static final double CV = Double.parseDouble(System.getProperty("perf.warmup.cv", "0.25"));
+
+    private Warmup() {}
+
+    public static void run(String csv, ScaleLoop.Iteration iteration) throws Exception {
+        if (!ENABLED) return;
+
+        PerformanceMonitor monitor = new PerformanceMonitor(csv.replace(".csv", "_warmup.csv"));
+        SteadyState steady = new SteadyState(WINDOW, CV);
+        double[] block = new double[BLOCK];
+
+        long start = System.nanoTime();
+        long minNanos = MIN_SECONDS * 1_000_000_000L;
+        double firstMs = 0;
+        int i = 0;
+
+        while (i < MAX_ITERATIONS) {
+            iteration.run(0, i, monitor);
+            double ms = monitor.lastRowMs();
+            if (i == 0) firstMs = ms;
+            block[i % BLOCK] = ms;
+            i++;
+            if (i % BLOCK != 0) continue;
+
+            steady.add(median(block));
+            if (i >= MIN_ITERATIONS && System.nanoTime() - start >= minNanos && steady.isSteady()) break;
+        }
+
+        monitor.writeCSV();
+
+        System.out.printf("%s warmup: %d iterations in %.1fs, first %.2fms, %s (cv=%.3f)%n",
+                csv, i, (System.nanoTime() - start) / 1e9, firstMs,
+                steady.isSteady() ? "steady" : "NOT steady", steady.cv());
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+    }
+}